@@ -1,4 +1,4 @@
-import React, { useState } from 'react';
+import React, { useEffect, useState } from 'react';
 import {
   Container,
   Typography,
@@ -14,7 +14,10 @@ import ArrowBackIcon from '@mui/icons-material/ArrowBack';
 import CloudUploadIcon from '@mui/icons-material/CloudUpload';
 import DescriptionIcon from '@mui/icons-material/Description';
 import { useNavigate } from 'react-router-dom';
-import { uploadCustomersExcel } from '../services/customerService';
+import { getUploadStatus, uploadCustomersExcel } from '../services/customerService';
+
+const POLL_INTERVAL_MS = 1000;
+const ACTIVE_STATUSES = ['QUEUED', 'RUNNING'];
 
 const BulkUpload = () => {
   const [file, setFile] = useState(null);
@@ -24,6 +27,8 @@ const BulkUpload = () => {
     severity: 'success',
   });
   const [uploading, setUploading] = useState(false);
+  // the import job of the last upload, refreshed from the server until it finishes
+  const [job, setJob] = useState(null);
 
   const navigate = useNavigate();
 
@@ -31,6 +36,51 @@ const BulkUpload = () => {
     setSnackbar({ ...snackbar, open: false });
   };
 
+  useEffect(() => {
+    if (!job || !ACTIVE_STATUSES.includes(job.status)) return undefined;
+    let cancelled = false;
+    const timer = setTimeout(async () => {
+      try {
+        const res = await getUploadStatus(job.id);
+        if (cancelled) return;
+        setJob(res.data);
+        if (res.data.status === 'COMPLETED') {
+          setSnackbar({
+            open: true,
+            message: `Import job #${res.data.id} completed: ${res.data.inserted} customers added.`,
+            severity: 'success',
+          });
+        } else if (res.data.status === 'FAILED') {
+          setSnackbar({
+            open: true,
+            message: `Import job #${res.data.id} failed: ${res.data.error || 'unknown error'}`,
+            severity: 'error',
+          });
+        }
+      } catch (error) {
+        if (cancelled) return;
+        console.error(error);
+        if (error.response?.status === 404) {
+          setJob(null);
+          setSnackbar({
+            open: true,
+            message: `Import job #${job.id} no longer exists.`,
+            severity: 'warning',
+          });
+        } else {
+          // try again on the next tick
+          setJob({ ...job });
+        }
+      }
+    }, POLL_INTERVAL_MS);
+    return () => {
+      cancelled = true;
+      clearTimeout(timer);
+    };
+  }, [job]);
+
+  const importing = job && ACTIVE_STATUSES.includes(job.status);
+
   const handleFileChange = (e) => {
     setFile(e.target.files[0]);
   };
@@ -50,10 +100,11 @@ const BulkUpload = () => {
 
     setUploading(true);
     try {
-      await uploadCustomersExcel(formData);
+      const res = await uploadCustomersExcel(formData);
+      setJob(res.data);
       setSnackbar({
         open: true,
-        message: 'Bulk upload successful!',
+        message: `Upload accepted, import job #${res.data.id} started.`,
         severity: 'success',
       });
       setFile(null);
@@ -137,13 +188,44 @@ const BulkUpload = () => {
           variant="contained"
           color="primary"
           onClick={handleUpload}
-          disabled={uploading || !file}
+          disabled={uploading || importing || !file}
         >
           Upload Now
         </Button>
 
         {uploading && <LinearProgress sx={{ mt: 2 }} />}
 
+        {job && (
+          <Box mt={3}>
+            <Typography variant="subtitle2">
+              Import job #{job.id}: {job.status.toLowerCase()}
+            </Typography>
+            {importing && (
+              <LinearProgress
+                sx={{ mt: 1 }}
+                variant={job.totalRows > 0 ? 'determinate' : 'indeterminate'}
+                value={job.totalRows > 0 ? (100 * job.rowsProcessed) / job.totalRows : 0}
+              />
+            )}
+            <Typography variant="body2" color="text.secondary" sx={{ mt: 1 }}>
+              {job.totalRows > 0 ? `${job.rowsProcessed} of ${job.totalRows}` : job.rowsProcessed} rows
+              processed, {job.inserted} added,{' '}
+              {job.skippedExistingNic + job.skippedDuplicateNic} duplicate NICs skipped,{' '}
+              {job.skippedMissingFields} rows missing fields, {job.failed} failed
+            </Typography>
+            {importing && job.etaSeconds != null && (
+              <Typography variant="body2" color="text.secondary">
+                About {job.etaSeconds} s left
+              </Typography>
+            )}
+            {job.status === 'FAILED' && job.error && (
+              <Typography variant="body2" color="error" sx={{ mt: 1 }}>
+                {job.error}
+              </Typography>
+            )}
+          </Box>
+        )}
+
         <Snackbar
           open={snackbar.open}
           autoHideDuration={3000}
@@ -6,7 +6,7 @@ import {
 import AddIcon from '@mui/icons-material/Add';
 import {
   createCustomer, updateCustomer, getCustomer,
-  getCities, getCountries
+  getCitiesByCountry, getCountries
 } from '../services/customerService';
 
 const CustomerForm = ({ onSuccess, customerId }) => {
@@ -35,10 +35,18 @@ const CustomerForm = ({ onSuccess, customerId }) => {
     getCountries()
       .then(res => setCountries(res.data))
       .catch(() => setCountries([]));
-    getCities()
+  }, []);
+
+  // Only the selected country's cities are fetched
+  useEffect(() => {
+    if (!form.countryId) {
+      setCities([]);
+      return;
+    }
+    getCitiesByCountry(form.countryId)
       .then(res => setCities(res.data))
       .catch(() => setCities([]));
-  }, []);
+  }, [form.countryId]);
 
   useEffect(() => {
     const loadCustomer = async () => {
@@ -56,6 +64,7 @@ const CustomerForm = ({ onSuccess, customerId }) => {
             cityId: addr.city?.id?.toString() || '',
             countryId: addr.country?.id?.toString() || '',
             mobileNumbers: customer.mobileNumbers?.length ? customer.mobileNumbers : [''],
+            version: customer.version,
           });
           setIsEdit(true);
         } catch (err) {
@@ -86,7 +95,11 @@ const CustomerForm = ({ onSuccess, customerId }) => {
   };
 
   const handleChange = (e) => {
-    setForm({ ...form, [e.target.name]: e.target.value });
+    const { name, value } = e.target;
+    // a city picked for the previous country is no longer in the list
+    setForm(name === 'countryId'
+      ? { ...form, countryId: value, cityId: '' }
+      : { ...form, [name]: value });
   };
 
   const handleMobileChange = (index, value) => {
@@ -125,6 +138,7 @@ const CustomerForm = ({ onSuccess, customerId }) => {
       dateOfBirth: form.dateOfBirth,
       nic: form.nic,
       mobileNumbers: form.mobileNumbers,
+      version: form.version,
       addresses: [
         {
           addressLine1: form.addressLine1,
@@ -157,7 +171,10 @@ const CustomerForm = ({ onSuccess, customerId }) => {
       });
     } catch (error) {
       console.error(error);
-      setSnackbar({ open: true, message: 'Error submitting form.', severity: 'error' });
+      const message = error.response?.status === 409
+        ? 'This customer was changed by someone else. Reload it and try again.'
+        : 'Error submitting form.';
+      setSnackbar({ open: true, message, severity: 'error' });
     }
   };
 
@@ -1,28 +1,74 @@
 import React, { useEffect, useState } from 'react';
 import {
   Table, TableBody, TableCell, TableContainer, TableHead, TableRow,
-  Paper, Typography, IconButton
+  Paper, Typography, IconButton, TextField, Button, Box
 } from '@mui/material';
 import EditIcon from '@mui/icons-material/Edit';
-import { getCustomers } from '../services/customerService';
+import { getCustomers, searchCustomers } from '../services/customerService';
+
+// Search hits carry addresses as "line 1, line 2" strings rather than objects
+const formatAddress = (addr) => (typeof addr === 'string'
+  ? addr
+  : `${addr.addressLine1}, ${addr.addressLine2}, ${addr.city?.name}, ${addr.country?.name}`);
 
 const CustomerTable = ({ onEdit, reload }) => {
   const [customers, setCustomers] = useState([]);
+  const [query, setQuery] = useState('');
+  // cursor of the next slice of the list; null once it is all shown, and for search results
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
-    getCustomers()
-      .then(res => setCustomers(res.data))
-      .catch(err => {
-        console.error('Failed to fetch customers:', err);
-        setCustomers([]);
-      });
-  }, [reload]);
+    const text = query.trim();
+    let current = true;
+    // wait for a pause in typing before asking the search index
+    const timer = setTimeout(() => {
+      const request = text.length >= 2
+        ? searchCustomers(text).then(res => ({ content: res.data, hasNext: false }))
+        : getCustomers().then(res => res.data);
+      request
+        .then(slice => {
+          if (!current) return;
+          setCustomers(slice.content);
+          setNextCursor(slice.hasNext ? slice.nextCursor : null);
+        })
+        .catch(err => {
+          console.error('Failed to fetch customers:', err);
+          if (!current) return;
+          setCustomers([]);
+          setNextCursor(null);
+        });
+    }, text ? 250 : 0);
+    return () => {
+      current = false;
+      clearTimeout(timer);
+    };
+  }, [reload, query]);
+
+  const loadMore = () => {
+    setLoadingMore(true);
+    getCustomers(nextCursor)
+      .then(res => {
+        setCustomers(shown => [...shown, ...res.data.content]);
+        setNextCursor(res.data.hasNext ? res.data.nextCursor : null);
+      })
+      .catch(err => console.error('Failed to fetch more customers:', err))
+      .finally(() => setLoadingMore(false));
+  };
 
   return (
     <Paper elevation={3} sx={{ p: 3, mb: 4 }}>
       <Typography variant="h6" gutterBottom>
         Customer List
       </Typography>
+      <TextField
+        label="Search by name, NIC, phone or address"
+        value={query}
+        onChange={(e) => setQuery(e.target.value)}
+        fullWidth
+        size="small"
+        sx={{ mb: 2 }}
+      />
       <TableContainer>
         <Table>
           <TableHead>
@@ -44,9 +90,7 @@ const CustomerTable = ({ onEdit, reload }) => {
                 <TableCell>
                   {c.addresses?.length > 0 ? (
                     c.addresses.map((addr, i) => (
-                      <div key={i}>
-                        {addr.addressLine1}, {addr.addressLine2}, {addr.city?.name}, {addr.country?.name}
-                      </div>
+                      <div key={i}>{formatAddress(addr)}</div>
                     ))
                   ) : (
                     'N/A'
@@ -63,6 +107,13 @@ const CustomerTable = ({ onEdit, reload }) => {
           </TableBody>
         </Table>
       </TableContainer>
+      {nextCursor && (
+        <Box textAlign="center" mt={2}>
+          <Button variant="outlined" onClick={loadMore} disabled={loadingMore}>
+            {loadingMore ? 'Loading...' : 'Load more'}
+          </Button>
+        </Box>
+      )}
     </Paper>
   );
 };
@@ -2,13 +2,18 @@ import axios from 'axios';
 
 const API_BASE = 'http://localhost:8080/api';
 
-export const getCustomers = () => axios.get(`${API_BASE}/customers`);
+// One slice of customers; pass the previous slice's nextCursor to get the one after it
+export const getCustomers = (cursor) =>
+  axios.get(`${API_BASE}/customers`, { params: cursor ? { cursor } : {} });
 export const getCustomer = (id) => axios.get(`${API_BASE}/customers/${id}`);
 export const createCustomer = (data) => axios.post(`${API_BASE}/customers`, data);
 export const updateCustomer = (id, data) => axios.put(`${API_BASE}/customers/${id}`, data);
+export const searchCustomers = (q, limit = 20) =>
+  axios.get(`${API_BASE}/customers/search`, { params: { q, limit } });
 
 export const getCities = () => axios.get(`${API_BASE}/cities`);
 export const getCountries = () => axios.get(`${API_BASE}/countries`);
+export const getCitiesByCountry = (countryId) => axios.get(`${API_BASE}/countries/${countryId}/cities`);
 
 // Upload Excel for bulk customer creation
 export const uploadCustomersExcel = (formData) => {
@@ -18,3 +23,5 @@ export const uploadCustomersExcel = (formData) => {
     },
   });
 };
+
+export const getUploadStatus = (jobId) => axios.get(`${API_BASE}/customers/upload/${jobId}`);
@@ -0,0 +1,89 @@
+package com.project.cms.benchmark;
+
+import com.project.cms.CmsApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/** The application and test data shared by the benchmarks that run against a database. */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Starts the application without a web server on an in-memory H2 database in MariaDB
+     * mode, with the search index in memory and logging quiet.
+     */
+    static ConfigurableApplicationContext start(String database, String... extraArgs) {
+        return run(WebApplicationType.NONE, database, Arrays.asList(extraArgs), Collections.emptyList());
+    }
+
+    /**
+     * Like {@link #start}, with the web server listening on a random port and the initializer
+     * applied before any bean is created.
+     */
+    static ConfigurableApplicationContext startServer(String database,
+                                                      ApplicationContextInitializer<ConfigurableApplicationContext> initializer,
+                                                      String... extraArgs) {
+        List<String> args = new ArrayList<>(Arrays.asList(extraArgs));
+        args.add("--server.port=0");
+        return run(WebApplicationType.SERVLET, database, args, Collections.singletonList(initializer));
+    }
+
+    private static ConfigurableApplicationContext run(WebApplicationType type, String database, List<String> extraArgs,
+                                                      List<ApplicationContextInitializer<ConfigurableApplicationContext>> initializers) {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MariaDB;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--cms.search.index-dir=",
+                "--logging.level.root=WARN"));
+        args.addAll(extraArgs);
+        return new SpringApplicationBuilder(CmsApplication.class)
+                .web(type)
+                .initializers(initializers.toArray(new ApplicationContextInitializer<?>[0]))
+                .run(args.toArray(new String[0]));
+    }
+
+    // the countries and cities of data.sql, with the ids the generated rows refer to
+    static void insertReferenceData(JdbcTemplate jdbc) {
+        jdbc.update("insert into country (id, name) values (1, 'Sri Lanka'), (2, 'USA'), (3, 'China'), (4, 'India')");
+        jdbc.update("insert into city (id, name, country_id) values (1, 'Colombo', 1), (2, 'Galle', 1), "
+                + "(3, 'Los Angeles', 2), (4, 'New York', 2), (5, 'Beijing', 3), (6, 'Shanghai', 3), "
+                + "(7, 'Delhi', 4), (8, 'Mumbai', 4)");
+    }
+
+    /**
+     * Customers 1 to {@code rows}, each with one address and two mobile numbers, the same
+     * values {@link BulkUploadParseBenchmark#writeSheet} puts in an upload file.
+     */
+    static void insertCustomers(JdbcTemplate jdbc, int rows) {
+        LocalDate dob = LocalDate.of(1960, 1, 1);
+        List<Object[]> customers = new ArrayList<>();
+        List<Object[]> addresses = new ArrayList<>();
+        List<Object[]> mobiles = new ArrayList<>();
+        for (int r = 1; r <= rows; r++) {
+            customers.add(new Object[]{r, "Customer " + r, String.format("%09dV", r), Date.valueOf(dob.plusDays(r % 15000))});
+            addresses.add(new Object[]{r, r + " Main St", "Apt " + (r % 50), 1 + r % 8, 1 + r % 4, r});
+            mobiles.add(new Object[]{r, String.format("+947%08d", r)});
+            mobiles.add(new Object[]{r, String.format("+947%08d", r + 1)});
+        }
+        jdbc.batchUpdate("insert into customer (id, name, nic, date_of_birth) values (?, ?, ?, ?)", customers);
+        jdbc.batchUpdate("insert into address (id, address_line1, address_line2, city_id, country_id, customer_id) "
+                + "values (?, ?, ?, ?, ?, ?)", addresses);
+        jdbc.batchUpdate("insert into customer_mobile_numbers (customer_id, mobile_numbers) values (?, ?)", mobiles);
+    }
+}
@@ -0,0 +1,86 @@
+package com.project.cms.benchmark;
+
+import com.project.cms.service.CustomerService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link CustomerService#bulkUpload} end-to-end against an in-memory H2 database in
+ * MariaDB mode. Reports rows/sec and the number of JDBC statements Hibernate prepared.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="BulkUploadBenchmark"
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+// one measured iteration: JMH adds up EVENTS counters over iterations, so with more the
+// counters below would read as sums
+@Measurement(iterations = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkUploadBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private CustomerService service;
+    private JdbcTemplate jdbc;
+    private Statistics statistics;
+    private MockMultipartFile upload;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Metrics {
+        public double rowsPerSec;
+        public long statementsPrepared;
+    }
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        context = BenchmarkData.start("bench", "--spring.jpa.properties.hibernate.generate_statistics=true");
+        service = context.getBean(CustomerService.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        BenchmarkData.insertReferenceData(jdbc);
+
+        File file = File.createTempFile("bulkupload-bench-", ".xlsx");
+        try {
+            BulkUploadParseBenchmark.writeSheet(file, rows);
+            upload = new MockMultipartFile("file", file.getName(), null, Files.readAllBytes(file.toPath()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clearCustomers() {
+        jdbc.update("delete from address");
+        jdbc.update("delete from customer_mobile_numbers");
+        jdbc.update("delete from customer");
+        statistics.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object upload(Metrics metrics) {
+        long start = System.nanoTime();
+        Object result = service.bulkUpload(upload);
+        metrics.rowsPerSec = rows / ((System.nanoTime() - start) / 1e9);
+        metrics.statementsPrepared = statistics.getPrepareStatementCount();
+        return result;
+    }
+}
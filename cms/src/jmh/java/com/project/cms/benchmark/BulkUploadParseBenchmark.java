@@ -0,0 +1,166 @@
+package com.project.cms.benchmark;
+
+import com.project.cms.service.StreamingSheetReader;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old in-memory {@link XSSFWorkbook} parse with {@link StreamingSheetReader}
+ * on generated sheets shaped like "bulkupload sample.xlsx". Reports rows/sec and the
+ * peak heap seen while reading.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="BulkUploadParseBenchmark"
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+// one measured iteration: JMH adds up EVENTS counters over iterations, so with more the peak
+// heap and rows/sec below would read as sums
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class BulkUploadParseBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"workbook", "streaming"})
+    public String reader;
+
+    private File file;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Metrics {
+        public long rowsRead;
+        public long peakHeapMb;
+        public double rowsPerSec;
+        private long startNanos;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rowsRead = 0;
+            peakHeapMb = 0;
+            System.gc();
+            for (MemoryPoolMXBean pool : heapPools()) pool.resetPeakUsage();
+            startNanos = System.nanoTime();
+        }
+
+        void record() {
+            long peak = 0;
+            for (MemoryPoolMXBean pool : heapPools()) peak += pool.getPeakUsage().getUsed();
+            peakHeapMb = peak / (1024 * 1024);
+            rowsPerSec = rowsRead / ((System.nanoTime() - startNanos) / 1e9);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void createFile() throws Exception {
+        file = File.createTempFile("bulkupload-bench-" + rows + "-", ".xlsx");
+        writeSheet(file, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Benchmark
+    public void parse(Metrics metrics, Blackhole bh) throws Exception {
+        if ("workbook".equals(reader)) {
+            try (InputStream is = new FileInputStream(file); Workbook workbook = new XSSFWorkbook(is)) {
+                Sheet sheet = workbook.getSheetAt(0);
+                for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+                    Row row = sheet.getRow(i);
+                    if (row == null) continue;
+                    for (int c = 0; c < 8; c++) bh.consume(legacyCellValue(row.getCell(c)));
+                    metrics.rowsRead++;
+                }
+                metrics.record();
+            }
+        } else {
+            new StreamingSheetReader(8).read(file, (rowIndex, cells) -> {
+                if (rowIndex < 1) return;
+                bh.consume(cells);
+                metrics.rowsRead++;
+            });
+            metrics.record();
+        }
+    }
+
+    static void writeSheet(File target, int rows) throws Exception {
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100); OutputStream out = new FileOutputStream(target)) {
+            Sheet sheet = workbook.createSheet();
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat((short) 14);
+
+            Row header = sheet.createRow(0);
+            String[] columns = {"name", "dateOfBirth", "nic", "addressLine1", "addressLine2",
+                    "cityId", "countryId", "mobileNumbers"};
+            for (int c = 0; c < columns.length; c++) header.createCell(c).setCellValue(columns[c]);
+
+            LocalDate dob = LocalDate.of(1960, 1, 1);
+            for (int r = 1; r <= rows; r++) {
+                Row row = sheet.createRow(r);
+                row.createCell(0).setCellValue("Customer " + r);
+                Cell dobCell = row.createCell(1);
+                dobCell.setCellValue(dob.plusDays(r % 15000));
+                dobCell.setCellStyle(dateStyle);
+                row.createCell(2).setCellValue(String.format("%09dV", r));
+                row.createCell(3).setCellValue(r + " Main St");
+                row.createCell(4).setCellValue("Apt " + (r % 50));
+                row.createCell(5).setCellValue(1 + r % 8);
+                row.createCell(6).setCellValue(1 + r % 4);
+                row.createCell(7).setCellValue(String.format("07%08d, 07%08d", r, r + 1));
+            }
+            workbook.write(out);
+            workbook.dispose();
+        }
+    }
+
+    // The Cell-to-String conversion bulkUpload used with the XSSFWorkbook reader.
+    private static String legacyCellValue(Cell cell) {
+        if (cell == null) return null;
+
+        switch (cell.getCellType()) {
+            case STRING:
+                return cell.getStringCellValue().trim();
+            case NUMERIC:
+                if (DateUtil.isCellDateFormatted(cell)) {
+                    return cell.getLocalDateTimeCellValue().toLocalDate().toString();
+                } else {
+                    return String.valueOf((long) cell.getNumericCellValue());
+                }
+            case BOOLEAN:
+                return String.valueOf(cell.getBooleanCellValue());
+            case FORMULA:
+                return cell.getCellFormula();
+            default:
+                return null;
+        }
+    }
+
+    static Iterable<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pools.add(pool);
+        }
+        return pools;
+    }
+}
@@ -0,0 +1,118 @@
+package com.project.cms.benchmark;
+
+import com.project.cms.dto.CustomerFilter;
+import com.project.cms.service.CustomerExportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.lang.management.MemoryPoolMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link CustomerExportService} in each export format against an in-memory H2 database
+ * in MariaDB mode, discarding the output. Reports rows/sec, the bytes written and the peak
+ * heap seen while exporting.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="CustomerExportBenchmark"
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+// one measured iteration: JMH adds up EVENTS counters over iterations, so with more the
+// counters below would read as sums
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class CustomerExportBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"xlsx", "csv", "json"})
+    public String format;
+
+    private ConfigurableApplicationContext context;
+    private CustomerExportService exportService;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Metrics {
+        public double rowsPerSec;
+        public long kbWritten;
+        public long peakHeapMb;
+        public long startHeapMb;
+        private long startHeap;
+        private long startNanos;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            System.gc();
+            // the in-memory database lives on the same heap, so report the peak against this baseline
+            startHeap = 0;
+            for (MemoryPoolMXBean pool : BulkUploadParseBenchmark.heapPools()) {
+                startHeap += pool.getUsage().getUsed();
+                pool.resetPeakUsage();
+            }
+            startNanos = System.nanoTime();
+        }
+
+        void record(int rows, long bytes) {
+            long peak = 0;
+            for (MemoryPoolMXBean pool : BulkUploadParseBenchmark.heapPools()) peak += pool.getPeakUsage().getUsed();
+            peakHeapMb = peak / (1024 * 1024);
+            startHeapMb = startHeap / (1024 * 1024);
+            kbWritten = bytes / 1024;
+            rowsPerSec = rows / ((System.nanoTime() - startNanos) / 1e9);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkData.start("export");
+        exportService = context.getBean(CustomerExportService.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        BenchmarkData.insertReferenceData(jdbc);
+        BenchmarkData.insertCustomers(jdbc, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public long export(Metrics metrics) throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        CustomerFilter all = new CustomerFilter();
+        switch (format) {
+            case "xlsx":
+                exportService.writeExcel(all, out);
+                break;
+            case "csv":
+                exportService.writeCsv(all, out);
+                break;
+            default:
+                exportService.writeJson(all, out);
+                break;
+        }
+        metrics.record(rows, out.bytes);
+        return out.bytes;
+    }
+
+    // Stands in for the response stream: counts bytes so the output is not optimised away.
+    private static class CountingOutputStream extends OutputStream {
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.project.cms.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /api/customers/{id}} over HTTP from 1000 concurrent clients, with Tomcat handling
+ * requests on its pool of platform threads ({@code threads=platform}) or on virtual threads
+ * behind the concurrency limit ({@code threads=virtual}). Throughput mode gives requests per
+ * millisecond and sample mode the latency percentiles, p0.99 among them.
+ * <p>
+ * An in-memory H2 answers in microseconds where MariaDB takes network round trips, and
+ * threads waiting on those are what virtual threads save. To stand in for them, each connection
+ * taken from the pool is held for {@code latencyMs} before it is handed out. The wait happens
+ * outside H2, whose locks would pin a virtual thread to its carrier.
+ * <p>
+ * The virtual mode needs Java 21: point the fork at it with {@code -jvm /path/to/jdk-21/bin/java}.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="CustomerLoadBenchmark -jvm /opt/jdk-21/bin/java"
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(1000)
+// the JDK keeps only 5 idle connections per host by default; each client needs its own
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dhttp.maxConnections=1000"})
+@State(Scope.Benchmark)
+public class CustomerLoadBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"5"})
+    public int latencyMs;
+
+    @Param({"10000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private String customersUrl;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkData.startServer("load",
+                app -> app.getBeanFactory().addBeanPostProcessor(new RoundTripLatency(latencyMs)),
+                "--cms.virtual-threads.enabled=" + "virtual".equals(threads));
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        BenchmarkData.insertReferenceData(jdbc);
+        BenchmarkData.insertCustomers(jdbc, rows);
+        customersUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/customers/";
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getCustomer() throws IOException {
+        long id = 1 + ThreadLocalRandom.current().nextInt(rows);
+        HttpURLConnection connection = (HttpURLConnection) new URL(customersUrl + id).openConnection();
+        int status = connection.getResponseCode();
+        if (status != 200) {
+            throw new IllegalStateException("GET " + connection.getURL() + " answered " + status);
+        }
+        // read to the end so the connection goes back to the keep-alive cache
+        int length = 0;
+        byte[] buffer = new byte[8192];
+        try (InputStream body = connection.getInputStream()) {
+            for (int n = body.read(buffer); n >= 0; n = body.read(buffer)) {
+                length += n;
+            }
+        }
+        return length;
+    }
+
+    // Holds each pooled connection for the given time once the application has taken it.
+    private static class RoundTripLatency implements BeanPostProcessor {
+
+        private final int millis;
+
+        RoundTripLatency(int millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource) || millis == 0) return bean;
+            return new DelegatingDataSource((DataSource) bean) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    Connection connection = super.getConnection();
+                    try {
+                        Thread.sleep(millis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return connection;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.project.cms.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.cms.dto.CustomerFilter;
+import com.project.cms.dto.CustomerSlice;
+import com.project.cms.entity.Customer;
+import com.project.cms.service.CustomerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What {@code GET /api/customers} and {@code GET /api/customers/{id}} do per request against
+ * an in-memory H2 database in MariaDB mode: load through {@link CustomerService}, then write
+ * the JSON with the application's ObjectMapper. Both run in one read-only transaction, as the
+ * open session in view gives a request, so lazy mobile numbers load during serialization
+ * like they do in production. {@code serializePage} writes an already loaded page, to
+ * separate Jackson's share from the database's.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="CustomerReadBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class CustomerReadBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"20", "200"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private CustomerService service;
+    private ObjectMapper objectMapper;
+    private TransactionTemplate request;
+    private CustomerSlice<Customer> loadedPage;
+    private final Random random = new Random(42);
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkData.start("read");
+        service = context.getBean(CustomerService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        request = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        request.setReadOnly(true);
+
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        BenchmarkData.insertReferenceData(jdbc);
+        BenchmarkData.insertCustomers(jdbc, rows);
+
+        loadedPage = request.execute(status -> {
+            CustomerSlice<Customer> page = service.getCustomers(new CustomerFilter(), "id", pageSize, null);
+            writeJson(page); // initializes everything serialization touches
+            return page;
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] listCustomers() {
+        return request.execute(status ->
+                writeJson(service.getCustomers(new CustomerFilter(), "id", pageSize, null)));
+    }
+
+    @Benchmark
+    public byte[] getCustomer() {
+        long id = 1 + random.nextInt(rows);
+        return request.execute(status -> writeJson(service.getCustomer(id)));
+    }
+
+    @Benchmark
+    public byte[] serializePage() {
+        return writeJson(loadedPage);
+    }
+
+    private byte[] writeJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
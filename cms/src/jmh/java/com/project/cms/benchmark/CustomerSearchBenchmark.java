@@ -0,0 +1,130 @@
+package com.project.cms.benchmark;
+
+import com.project.cms.dto.CustomerSearchHit;
+import com.project.cms.entity.Address;
+import com.project.cms.entity.Customer;
+import com.project.cms.service.CustomerSearchIndex;
+import org.apache.lucene.store.FSDirectory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Latency of {@link CustomerSearchIndex#search} over an on-disk index of generated
+ * customers, for each kind of text agents type: a name prefix, a misspelt full name, a NIC
+ * fragment or part of a phone number. SampleTime mode reports the p99 that the
+ * search box is held to (20 ms).
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="CustomerSearchBenchmark -p customers=1000000"
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class CustomerSearchBenchmark {
+
+    private static final String[] FIRST = {"Nimal", "Kamal", "Sunil", "Amara", "Chamari", "Dilani", "Kasun",
+            "Tharindu", "Nadeesha", "Ruwan", "Sanduni", "Lahiru", "Ishara", "Pradeep", "Gayani", "Mahesh",
+            "Anjali", "Rohan", "Priya", "John", "Maria", "Ahmed", "Fatima", "Wei", "Arjun"};
+    private static final String[] LAST = {"Perera", "Fernando", "Silva", "Jayasuriya", "Bandara", "Wickramasinghe",
+            "Dissanayake", "Rajapaksa", "Gunawardena", "Herath", "Kumara", "Ranasinghe", "Senanayake",
+            "Abeysekera", "Wijesinghe", "Smith", "Khan", "Chen", "Patel", "Nair"};
+    private static final String[] STREETS = {"Galle Road", "Temple Lane", "Main Street", "Kandy Road",
+            "Lake Drive", "Station Road", "Church Street", "Hill Street"};
+
+    @Param({"100000", "1000000"})
+    public int customers;
+
+    @Param({"prefix", "typo", "nic", "phone"})
+    public String kind;
+
+    private Path dir;
+    private CustomerSearchIndex index;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void build() throws IOException {
+        dir = Files.createTempDirectory("search-bench");
+        index = new CustomerSearchIndex(FSDirectory.open(dir));
+        Random random = new Random(42);
+        index.startRebuild(); // filled the way CustomerSearchService rebuilds it
+        List<Customer> batch = new ArrayList<>(10_000);
+        for (int i = 1; i <= customers; i++) {
+            batch.add(customer(i, random));
+            if (batch.size() == 10_000) {
+                index.update(batch);
+                batch.clear();
+            }
+        }
+        index.update(batch);
+        index.finishRebuild();
+        index.commit();
+        index.refresh();
+
+        queries = new String[1000];
+        for (int i = 0; i < queries.length; i++) queries[i] = query(random);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        index.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<CustomerSearchHit> search() throws IOException {
+        String text = queries[next++ % queries.length];
+        return index.search(text, 20);
+    }
+
+    private static Customer customer(int id, Random random) {
+        Customer customer = new Customer();
+        customer.setId((long) id);
+        customer.setName(FIRST[random.nextInt(FIRST.length)] + " " + LAST[random.nextInt(LAST.length)]);
+        customer.setNic(String.format("%09dV", random.nextInt(1_000_000_000)));
+        customer.setDateOfBirth(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20_000)));
+        customer.setMobileNumbers(Arrays.asList(String.format("+947%08d", random.nextInt(100_000_000))));
+        Address address = new Address();
+        address.setAddressLine1((1 + random.nextInt(300)) + " " + STREETS[random.nextInt(STREETS.length)]);
+        customer.setAddresses(Collections.singletonList(address));
+        return customer;
+    }
+
+    private String query(Random random) {
+        switch (kind) {
+            case "prefix":
+                return FIRST[random.nextInt(FIRST.length)].substring(0, 3);
+            case "typo":
+                return typo(FIRST[random.nextInt(FIRST.length)]) + " " + LAST[random.nextInt(LAST.length)];
+            case "nic":
+                return String.format("%06d", random.nextInt(1_000_000));
+            default:
+                return String.format("%03d %03d", random.nextInt(1000), random.nextInt(1000));
+        }
+    }
+
+    // swaps two neighbouring letters after the first
+    private static String typo(String name) {
+        char[] chars = name.toCharArray();
+        char c = chars[1];
+        chars[1] = chars[2];
+        chars[2] = c;
+        return new String(chars);
+    }
+}
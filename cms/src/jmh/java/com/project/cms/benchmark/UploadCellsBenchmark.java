@@ -0,0 +1,222 @@
+package com.project.cms.benchmark;
+
+import com.project.cms.service.MobileNumberNormalizer;
+import com.project.cms.service.StreamingSheetReader;
+import com.project.cms.service.UploadCells;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.model.SharedStringsTable;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-cell work of a bulk upload in isolation, per call: turning sheet XML into a cell
+ * value ({@link StreamingSheetReader#cellValue}), parsing the date of birth, and splitting
+ * and normalizing the mobile numbers. Inputs are shaped like "bulkupload sample.xlsx" and
+ * cycle through 1024 values so nothing is constant-folded. Add {@code -prof gc} to see the
+ * bytes allocated per call.
+ * <p>
+ * The {@code legacy} methods are the string-based conversion and formatter-based date parsing
+ * the import used before; {@code row} and {@code legacyRow} compare the two on the typed cells
+ * of one row (date of birth, city and country id) from sheet XML to the values mapped.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="UploadCellsBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UploadCellsBenchmark {
+
+    private static final int VALUES = 1024;
+
+    @State(Scope.Thread)
+    public static class Cells {
+        // number: a city id; date: a date-formatted numeric; string: an inline string;
+        // sharedString: an index into the shared strings table, as Excel writes text
+        @Param({"number", "date", "string", "sharedString"})
+        public String kind;
+
+        String type;
+        boolean dateStyle;
+        final StringBuilder[] values = new StringBuilder[VALUES];
+        final StringBuilder noFormula = new StringBuilder();
+        final SharedStringsTable strings = new SharedStringsTable();
+        int next;
+
+        @Setup
+        public void setup() {
+            Random random = new Random(42);
+            type = kind.equals("sharedString") ? "s" : kind.equals("string") ? "inlineStr" : null;
+            dateStyle = kind.equals("date");
+            for (int i = 0; i < VALUES; i++) {
+                String value;
+                switch (kind) {
+                    case "date":
+                        value = String.valueOf(DateUtil.getExcelDate(LocalDate.of(1960, 1, 1).plusDays(random.nextInt(15000))));
+                        break;
+                    case "string":
+                        value = " Customer " + random.nextInt(1_000_000) + " ";
+                        break;
+                    case "sharedString":
+                        value = String.valueOf(strings.addSharedStringItem(
+                                new XSSFRichTextString(random.nextInt(300) + " Main St")));
+                        break;
+                    default:
+                        value = String.valueOf(1 + random.nextInt(8));
+                        break;
+                }
+                values[i] = new StringBuilder(value);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Dates {
+        // M/d/yyyy is how Excel shows a typed date, ISO what a date-formatted cell reads as
+        @Param({"iso", "M/d/yyyy", "MM/dd/yyyy"})
+        public String format;
+
+        final String[] values = new String[VALUES];
+        int next;
+
+        @Setup
+        public void setup() {
+            Random random = new Random(42);
+            DateTimeFormatter formatter = format.equals("iso")
+                    ? DateTimeFormatter.ISO_LOCAL_DATE : DateTimeFormatter.ofPattern(format);
+            for (int i = 0; i < VALUES; i++) {
+                values[i] = LocalDate.of(1960, 1, 1).plusDays(random.nextInt(15000)).format(formatter);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Rows {
+        // as in BulkUploadParseBenchmark.writeSheet: a date-formatted date of birth and two ids
+        final StringBuilder[] dates = new StringBuilder[VALUES];
+        final StringBuilder[] cityIds = new StringBuilder[VALUES];
+        final StringBuilder[] countryIds = new StringBuilder[VALUES];
+        final StringBuilder noFormula = new StringBuilder();
+        int next;
+
+        @Setup
+        public void setup() {
+            Random random = new Random(42);
+            for (int i = 0; i < VALUES; i++) {
+                dates[i] = new StringBuilder(String.valueOf(
+                        (long) DateUtil.getExcelDate(LocalDate.of(1960, 1, 1).plusDays(random.nextInt(15000)))));
+                cityIds[i] = new StringBuilder(String.valueOf(1 + random.nextInt(8)));
+                countryIds[i] = new StringBuilder(String.valueOf(1 + random.nextInt(4)));
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Mobiles {
+        final String[] values = new String[VALUES];
+        final MobileNumberNormalizer normalizer = new MobileNumberNormalizer("94");
+        int next;
+
+        @Setup
+        public void setup() {
+            Random random = new Random(42);
+            for (int i = 0; i < VALUES; i++) {
+                values[i] = String.format("07%08d, 07%08d", random.nextInt(100_000_000), random.nextInt(100_000_000));
+            }
+        }
+    }
+
+    @Benchmark
+    public Object cellValue(Cells cells) {
+        StringBuilder value = cells.values[cells.next++ & (VALUES - 1)];
+        return StreamingSheetReader.cellValue(cells.type, value, cells.noFormula, cells.dateStyle, cells.strings);
+    }
+
+    @Benchmark
+    public String legacyCellValue(Cells cells) {
+        StringBuilder value = cells.values[cells.next++ & (VALUES - 1)];
+        return legacyCellValue(cells.type, value, cells.noFormula, cells.dateStyle, cells.strings);
+    }
+
+    @Benchmark
+    public LocalDate parseDate(Dates dates) {
+        return UploadCells.parseDate(dates.values[dates.next++ & (VALUES - 1)]);
+    }
+
+    @Benchmark
+    public LocalDate legacyParseDate(Dates dates) {
+        return legacyParseDate(dates.values[dates.next++ & (VALUES - 1)]);
+    }
+
+    @Benchmark
+    public long row(Rows rows) {
+        int i = rows.next++ & (VALUES - 1);
+        LocalDate dateOfBirth = UploadCells.date(StreamingSheetReader.cellValue(null, rows.dates[i], rows.noFormula, true, null));
+        long cityId = UploadCells.id(StreamingSheetReader.cellValue(null, rows.cityIds[i], rows.noFormula, false, null));
+        long countryId = UploadCells.id(StreamingSheetReader.cellValue(null, rows.countryIds[i], rows.noFormula, false, null));
+        return dateOfBirth.toEpochDay() + cityId + countryId;
+    }
+
+    @Benchmark
+    public long legacyRow(Rows rows) {
+        int i = rows.next++ & (VALUES - 1);
+        LocalDate dateOfBirth = legacyParseDate(legacyCellValue(null, rows.dates[i], rows.noFormula, true, null));
+        long cityId = Long.parseLong(legacyCellValue(null, rows.cityIds[i], rows.noFormula, false, null));
+        long countryId = Long.parseLong(legacyCellValue(null, rows.countryIds[i], rows.noFormula, false, null));
+        return dateOfBirth.toEpochDay() + cityId + countryId;
+    }
+
+    @Benchmark
+    public List<String> splitMobileNumbers(Mobiles mobiles) {
+        return UploadCells.splitMobileNumbers(mobiles.values[mobiles.next++ & (VALUES - 1)]);
+    }
+
+    // the split plus what the import does with each number before storing it
+    @Benchmark
+    public List<String> splitAndNormalizeMobileNumbers(Mobiles mobiles) {
+        List<String> numbers = UploadCells.splitMobileNumbers(mobiles.values[mobiles.next++ & (VALUES - 1)]);
+        numbers.replaceAll(mobiles.normalizer::normalize);
+        return numbers;
+    }
+
+    // StreamingSheetReader.cellValue when it gave every cell as a string
+    private static String legacyCellValue(String type, CharSequence value, CharSequence formula, boolean dateStyle,
+                                          SharedStringsTable strings) {
+        if (formula.length() > 0) return formula.toString();
+        if (type == null || "n".equals(type)) {
+            if (value.length() == 0) return null;
+            double numericValue = Double.parseDouble(value.toString());
+            if (dateStyle && DateUtil.isValidExcelDate(numericValue)) {
+                return DateUtil.getLocalDateTime(numericValue).toLocalDate().toString();
+            }
+            return String.valueOf((long) numericValue);
+        }
+        Object cell = StreamingSheetReader.cellValue(type, value, formula, false, strings);
+        return cell == null ? null : cell.toString();
+    }
+
+    // UploadCells.parseDate when it tried a list of formatters built per call
+    private static LocalDate legacyParseDate(String dateStr) {
+        List<DateTimeFormatter> formatters = Arrays.asList(
+                DateTimeFormatter.ofPattern("M/d/yyyy"),
+                DateTimeFormatter.ofPattern("MM/dd/yyyy"),
+                DateTimeFormatter.ISO_LOCAL_DATE
+        );
+
+        for (DateTimeFormatter formatter : formatters) {
+            try {
+                return LocalDate.parse(dateStr, formatter);
+            } catch (DateTimeParseException ignored) {}
+        }
+        throw new RuntimeException("Invalid date format: " + dateStr);
+    }
+}
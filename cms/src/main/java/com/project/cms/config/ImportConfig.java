@@ -0,0 +1,30 @@
+package com.project.cms.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ImportConfig {
+
+    /**
+     * Runs bulk-import jobs. Both the pool and its queue are bounded so a burst of uploads
+     * is rejected instead of piling up spooled files and database connections. The bounds
+     * stay with {@code cms.virtual-threads.enabled}, which only makes the threads virtual.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor importExecutor(@Value("${cms.import.threads:2}") int threads,
+                                                 @Value("${cms.import.queue-capacity:20}") int queueCapacity,
+                                                 @Value("${cms.virtual-threads.enabled:false}") boolean virtualThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("import-");
+        if (virtualThreads) {
+            executor.setThreadFactory(VirtualThreads.factory("import-"));
+        }
+        return executor;
+    }
+}
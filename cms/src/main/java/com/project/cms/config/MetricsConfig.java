@@ -0,0 +1,55 @@
+package com.project.cms.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public SqlObserver sqlObserver(@Value("${cms.sql.slow-threshold:200ms}") Duration slowThreshold,
+                                   @Value("${cms.sql.log-sample-rate:0}") double sampleRate,
+                                   MeterRegistry registry) {
+        SqlObserver observer = new SqlObserver(slowThreshold, sampleRate);
+        FunctionCounter.builder("cms.sql.log.dropped", observer, SqlObserver::droppedLogs)
+                .description("SQL log entries dropped because the log writer had fallen behind")
+                .register(registry);
+        return observer;
+    }
+
+    /**
+     * Wraps the application's DataSource so every statement is timed. Static, and looking the
+     * observer up only once a statement runs, so the DataSource is not held back waiting for it.
+     */
+    @Bean
+    public static BeanPostProcessor sqlTimingDataSourcePostProcessor(ObjectProvider<SqlObserver> observer) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof SqlTimingDataSource)) {
+                    return new SqlTimingDataSource((DataSource) bean, observer::getObject);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestSqlMetricsFilter> requestSqlMetricsFilter(
+            SqlObserver observer, MeterRegistry registry,
+            @Value("${cms.sql.budget.max-statements-per-request:0}") long statementBudget) {
+        FilterRegistrationBean<RequestSqlMetricsFilter> registration =
+                new FilterRegistrationBean<>(new RequestSqlMetricsFilter(observer, registry, statementBudget));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,175 @@
+package com.project.cms.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends connections of read-only transactions to the replica pool and everything else to the
+ * primary. It must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * the transaction manager asks for a connection before the transaction is marked read-only,
+ * and the proxy puts that off until the first statement.
+ * <p>
+ * A replica that can't hand out a connection is skipped for {@code retryAfter}, and its reads
+ * go to the primary meanwhile. A statement that fails on a replica connection already handed
+ * out is not retried.
+ * <p>
+ * With {@code readYourWrites} above zero, a client whose write transaction committed reads from
+ * the primary for that long, so it sees its own change before the replica catches up. The
+ * deadline travels in the {@value #READ_PRIMARY_COOKIE} cookie, so it holds across requests
+ * and application instances; a deadline in it is read as no later than {@code readYourWrites}
+ * from now.
+ * <p>
+ * Connections asked for with a username and password are routed the same way and taken from
+ * the chosen pool with those credentials.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    static final String READ_PRIMARY_COOKIE = "cms-read-primary-until";
+    private static final String READ_PRIMARY_ATTRIBUTE = ReadWriteRoutingDataSource.class.getName() + ".readPrimaryUntil";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final Duration retryAfter;
+    private final Duration readYourWrites;
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    private volatile long replicaRetryAt;
+    private volatile boolean replicaDown;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration retryAfter,
+                                      Duration readYourWrites) {
+        this.primary = primary;
+        this.replica = replica;
+        this.retryAfter = retryAfter;
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(pool -> pool.getConnection(username, password));
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public DataSource getReplica() {
+        return replica;
+    }
+
+    /** Read-only connections taken from the primary because the replica was unavailable. */
+    public long getFallbacks() {
+        return fallbacks.get();
+    }
+
+    private interface ConnectionSource {
+        Connection from(DataSource pool) throws SQLException;
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (!readYourWrites.isZero() && TransactionSynchronizationManager.isActualTransactionActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        readPrimaryAfterWrite();
+                    }
+                });
+            }
+            return source.from(primary);
+        }
+        if (readsOwnWrites()) {
+            return source.from(primary);
+        }
+        if (replicaDown && System.nanoTime() - replicaRetryAt < 0) {
+            return fallBack(source);
+        }
+        try {
+            Connection connection = source.from(replica);
+            if (replicaDown) {
+                replicaDown = false;
+                log.info("Read replica is reachable again");
+            }
+            return connection;
+        } catch (SQLException e) {
+            replicaRetryAt = System.nanoTime() + retryAfter.toNanos();
+            replicaDown = true;
+            log.warn("Read replica unavailable, reading from the primary for {}: {}", retryAfter, e.getMessage());
+            return fallBack(source);
+        }
+    }
+
+    private Connection fallBack(ConnectionSource source) throws SQLException {
+        fallbacks.incrementAndGet();
+        return source.from(primary);
+    }
+
+    private void readPrimaryAfterWrite() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) return;
+
+        long until = System.currentTimeMillis() + readYourWrites.toMillis();
+        attributes.setAttribute(READ_PRIMARY_ATTRIBUTE, until, RequestAttributes.SCOPE_REQUEST);
+        HttpServletResponse response = ((ServletRequestAttributes) attributes).getResponse();
+        if (response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(READ_PRIMARY_COOKIE, Long.toString(until));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(readYourWrites.getSeconds(), 1));
+            response.addCookie(cookie);
+        }
+    }
+
+    private boolean readsOwnWrites() {
+        if (readYourWrites.isZero()) return false;
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) return false;
+
+        long now = System.currentTimeMillis();
+        Object until = attributes.getAttribute(READ_PRIMARY_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (until == null) {
+            // the cookie comes from the client, so it can't keep reads on the primary any longer
+            // than a write just now would
+            until = Math.min(cookieDeadline(((ServletRequestAttributes) attributes).getRequest()),
+                    now + readYourWrites.toMillis());
+        }
+        return (Long) until > now;
+    }
+
+    private static long cookieDeadline(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) return 0;
+        for (Cookie cookie : cookies) {
+            if (READ_PRIMARY_COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,92 @@
+package com.project.cms.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Replaces the single {@code spring.datasource} pool with a primary and a read replica pool
+ * when {@code cms.datasource.replica.url} is set; see {@link ReadWriteRoutingDataSource}.
+ * The primary takes the {@code spring.datasource.*} settings and the replica its own
+ * {@code cms.datasource.replica.*}, each with a {@code .hikari.*} group for the pool.
+ * <p>
+ * Routing picks a pool per physical connection, so each transaction has to take its own.
+ * Spring's Hibernate adapter otherwise holds the connection until the session closes, and with
+ * open-in-view that is the end of the request: a write after a read-only transaction in the
+ * same request would go to the replica.
+ */
+@Configuration
+@ConditionalOnProperty("cms.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties primaryProperties, Environment environment,
+                                 @Value("${cms.datasource.replica.url}") String replicaUrl,
+                                 @Value("${cms.datasource.replica.username:${spring.datasource.username:}}") String replicaUsername,
+                                 @Value("${cms.datasource.replica.password:${spring.datasource.password:}}") String replicaPassword,
+                                 @Value("${cms.datasource.replica.retry-after:30s}") Duration retryAfter,
+                                 @Value("${cms.datasource.replica.read-your-writes:0s}") Duration readYourWrites) {
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(primaryProperties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        replica.setPoolName("replica");
+        // a replica that is down should fail over quickly rather than hold reads for the default 30s
+        replica.setConnectionTimeout(Duration.ofSeconds(2).toMillis());
+        // and must not stop the application from starting
+        replica.setInitializationFailTimeout(-1);
+        Binder.get(environment).bind("cms.datasource.replica.hikari", Bindable.ofInstance(replica));
+
+        return new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, replica, retryAfter, readYourWrites));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer connectionPerTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    /**
+     * Pool metrics for both pools, tagged with their pool names, which Spring Boot can't find
+     * behind the routing DataSource, and the count of reads that fell back to the primary.
+     */
+    @Bean
+    public MeterBinder readWriteRoutingMetrics(DataSource dataSource) throws SQLException {
+        ReadWriteRoutingDataSource routing = dataSource.unwrap(ReadWriteRoutingDataSource.class);
+        return registry -> {
+            ((HikariDataSource) routing.getPrimary()).setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            ((HikariDataSource) routing.getReplica()).setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            FunctionCounter.builder("cms.datasource.replica.fallbacks", routing, ReadWriteRoutingDataSource::getFallbacks)
+                    .description("Read-only connections taken from the primary because the replica was unavailable")
+                    .register(registry);
+        };
+    }
+}
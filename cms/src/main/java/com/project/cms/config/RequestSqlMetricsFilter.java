@@ -0,0 +1,69 @@
+package com.project.cms.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how many SQL statements each request executed as {@code cms.http.sql.statements}, and
+ * the time they took as {@code cms.http.sql.time}, tagged like {@code http.server.requests} with
+ * the method and the mapped URI pattern. Statements run after the request thread lets go, as a
+ * streamed export does, are not counted.
+ * <p>
+ * With a statement budget above zero, a request that goes over it fails with
+ * {@link SqlBudgetExceededException}; this is meant for tests.
+ */
+public class RequestSqlMetricsFilter extends OncePerRequestFilter {
+
+    private final SqlObserver observer;
+    private final MeterRegistry registry;
+    private final long statementBudget;
+
+    public RequestSqlMetricsFilter(SqlObserver observer, MeterRegistry registry, long statementBudget) {
+        this.observer = observer;
+        this.registry = registry;
+        this.statementBudget = statementBudget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String name = request.getMethod() + " " + request.getRequestURI();
+        String previousContext = observer.setContext(name);
+        long statementsBefore = observer.statements();
+        long nanosBefore = observer.nanos();
+        long statements;
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            observer.setContext(previousContext);
+            statements = observer.statements() - statementsBefore;
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            DistributionSummary.builder("cms.http.sql.statements")
+                    .description("SQL statements executed per request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(registry)
+                    .record(statements);
+            Timer.builder("cms.http.sql.time")
+                    .description("Time spent executing SQL per request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(registry)
+                    .record(observer.nanos() - nanosBefore, TimeUnit.NANOSECONDS);
+        }
+        if (statementBudget > 0 && statements > statementBudget) {
+            throw new SqlBudgetExceededException(name, statements, statementBudget);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.project.cms.config;
+
+/**
+ * Thrown when a request executes more SQL statements than
+ * {@code cms.sql.budget.max-statements-per-request} allows, so that a test driving the endpoint
+ * fails on the extra queries instead of passing slowly.
+ */
+public class SqlBudgetExceededException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SqlBudgetExceededException(String request, long statements, long budget) {
+        super(request + " executed " + statements + " SQL statements, over the budget of " + budget);
+    }
+}
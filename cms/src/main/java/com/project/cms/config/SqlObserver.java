@@ -0,0 +1,100 @@
+package com.project.cms.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps count of the SQL statements each thread executes and the time they took, as reported
+ * by {@link SqlTimingDataSource}. Both totals only grow, so a request or an import chunk reads
+ * them before and after to learn its own share.
+ * <p>
+ * Statements slower than {@code cms.sql.slow-threshold}, and a random
+ * {@code cms.sql.log-sample-rate} share of the others, are logged by the {@code com.project.cms.sql}
+ * logger. Logging happens on a background thread with a bounded queue; when it falls behind,
+ * entries are dropped and counted rather than slowing the statements down.
+ */
+public class SqlObserver {
+
+    private static final Logger log = LoggerFactory.getLogger("com.project.cms.sql");
+
+    private static final int LOG_QUEUE_CAPACITY = 1000;
+
+    private static final class Totals {
+        long statements;
+        long nanos;
+        String context;
+    }
+
+    private final ThreadLocal<Totals> totals = ThreadLocal.withInitial(Totals::new);
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+    private final AtomicLong droppedLogs = new AtomicLong();
+    private final ThreadPoolExecutor logWriter;
+
+    public SqlObserver(Duration slowThreshold, double sampleRate) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.sampleRate = sampleRate;
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("sql-log-");
+        threads.setDaemon(true);
+        this.logWriter = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(LOG_QUEUE_CAPACITY), threads,
+                (entry, executor) -> droppedLogs.incrementAndGet());
+    }
+
+    /** Statements executed on this thread so far. */
+    public long statements() {
+        return totals.get().statements;
+    }
+
+    /** Nanoseconds this thread has spent executing statements so far. */
+    public long nanos() {
+        return totals.get().nanos;
+    }
+
+    /**
+     * Names what this thread is working on, such as a request or an import chunk, for the log
+     * entries of its statements. Returns the previous name, to put back when the work is done.
+     */
+    public String setContext(String context) {
+        Totals current = totals.get();
+        String previous = current.context;
+        current.context = context;
+        return previous;
+    }
+
+    /** Log entries dropped because the log writer had fallen behind. */
+    public long droppedLogs() {
+        return droppedLogs.get();
+    }
+
+    void executed(String sql, long nanos) {
+        Totals current = totals.get();
+        current.statements++;
+        current.nanos += nanos;
+
+        boolean slow = nanos >= slowThresholdNanos;
+        if (slow || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            String context = current.context;
+            logWriter.execute(() -> {
+                double millis = nanos / 1_000_000.0;
+                if (slow) {
+                    log.warn("Slow SQL, {} ms [{}]: {}", String.format("%.1f", millis), context, sql);
+                } else {
+                    log.info("SQL, {} ms [{}]: {}", String.format("%.1f", millis), context, sql);
+                }
+            });
+        }
+    }
+
+    public void shutdown() {
+        logWriter.shutdown();
+    }
+}
@@ -0,0 +1,38 @@
+package com.project.cms.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * With {@code cms.virtual-threads.enabled}, Tomcat handles each request on a new virtual thread
+ * instead of its pool of {@code server.tomcat.threads.max} platform threads, and
+ * {@link ConcurrencyLimitFilter} caps the API requests running at once at
+ * {@code cms.virtual-threads.max-concurrent-requests}, by default the connection pool size.
+ * The import executors switch in {@link ImportConfig} and the import pipeline.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cms.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadRequestHandling() {
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.executor("tomcat-handler-"));
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            @Value("${cms.virtual-threads.max-concurrent-requests:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrent,
+            @Value("${cms.virtual-threads.queue-timeout:30s}") Duration queueTimeout) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(maxConcurrent, queueTimeout));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
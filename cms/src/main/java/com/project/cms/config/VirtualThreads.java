@@ -0,0 +1,54 @@
+package com.project.cms.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual threads for code built for Java 8. They need Java 21, so they are looked up by
+ * reflection and the application still runs on older JVMs while
+ * {@code cms.virtual-threads.enabled} is off.
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL = findOfVirtual();
+
+    private VirtualThreads() {
+    }
+
+    /** Whether this JVM has virtual threads. */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /** A factory of virtual threads named {@code prefix} followed by a counter. */
+    public static ThreadFactory factory(String prefix) {
+        if (!isSupported()) {
+            throw new IllegalStateException("Virtual threads need Java 21 or later, this is Java "
+                    + System.getProperty("java.version"));
+        }
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not create a virtual thread factory", e);
+        }
+    }
+
+    /** Runs each task on a new virtual thread. */
+    public static Executor executor(String prefix) {
+        ThreadFactory threads = factory(prefix);
+        return task -> threads.newThread(task).start();
+    }
+
+    private static Method findOfVirtual() {
+        try {
+            return Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -1,22 +1,43 @@
 package com.project.cms.controller;
 
 import com.project.cms.entity.City;
-import com.project.cms.repository.CityRepository;
+import com.project.cms.service.ReferenceDataCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/cities")
 @CrossOrigin
 public class CityController {
-    private final CityRepository repo;
-    public CityController(CityRepository repo) {
-        this.repo = repo;
+    private static final int MAX_SUGGESTIONS = 50;
+
+    private final ReferenceDataCache referenceData;
+    private final CacheControl cacheControl;
+    public CityController(ReferenceDataCache referenceData, @Value("${cms.reference.max-age:60s}") Duration maxAge) {
+        this.referenceData = referenceData;
+        this.cacheControl = CacheControl.maxAge(maxAge).mustRevalidate();
     }
 
+    // Pre-serialized from the cache; Spring answers a matching If-None-Match with 304
     @GetMapping
-    public List<City> all() {
-        return repo.findAll();
+    public ResponseEntity<byte[]> all() {
+        ReferenceDataCache.Representation cities = referenceData.getCitiesJson();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(cities.etag)
+                .cacheControl(cacheControl)
+                .body(cities.json);
+    }
+
+    // Typeahead: cities whose name starts with q, answered from the in-memory index
+    @GetMapping(params = "q")
+    public List<City> search(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return referenceData.getCityIndex().search(q, Math.min(Math.max(limit, 1), MAX_SUGGESTIONS));
     }
 }
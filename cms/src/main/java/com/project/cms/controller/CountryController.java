@@ -1,22 +1,43 @@
 package com.project.cms.controller;
 
-import com.project.cms.entity.Country;
-import com.project.cms.repository.CountryRepository;
+import com.project.cms.entity.City;
+import com.project.cms.service.ReferenceDataCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/countries")
 @CrossOrigin
 public class CountryController {
-    private final CountryRepository repo;
-    public CountryController(CountryRepository repo) {
-        this.repo = repo;
+    private final ReferenceDataCache referenceData;
+    private final CacheControl cacheControl;
+    public CountryController(ReferenceDataCache referenceData, @Value("${cms.reference.max-age:60s}") Duration maxAge) {
+        this.referenceData = referenceData;
+        this.cacheControl = CacheControl.maxAge(maxAge).mustRevalidate();
     }
 
+    // Pre-serialized from the cache; Spring answers a matching If-None-Match with 304
     @GetMapping
-    public List<Country> all() {
-        return repo.findAll();
+    public ResponseEntity<byte[]> all() {
+        ReferenceDataCache.Representation countries = referenceData.getCountriesJson();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(countries.etag)
+                .cacheControl(cacheControl)
+                .body(countries.json);
+    }
+
+    @GetMapping("/{id}/cities")
+    public ResponseEntity<List<City>> cities(@PathVariable Long id) {
+        if (!referenceData.countryExists(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().cacheControl(cacheControl).body(referenceData.getCityIndex().byCountry(id));
     }
 }
@@ -1,36 +1,146 @@
 package com.project.cms.controller;
 
+import com.project.cms.dto.BatchItemResult;
 import com.project.cms.dto.CustomerDTO;
+import com.project.cms.dto.CustomerFilter;
+import com.project.cms.dto.CustomerPatchDTO;
+import com.project.cms.dto.FamilyMember;
 import com.project.cms.entity.Customer;
+import com.project.cms.entity.ImportJob;
+import com.project.cms.service.CustomerExportService;
 import com.project.cms.service.CustomerService;
+import com.project.cms.service.ImportJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/customers")
 @CrossOrigin
 public class CustomerController {
 
+    private static final Logger log = LoggerFactory.getLogger(CustomerController.class);
+
+    private static final int MAX_BATCH_SIZE = 10000;
+
     private final CustomerService service;
+    private final ImportJobService importJobService;
+    private final CustomerExportService exportService;
+    private final Duration exportTimeout;
 
-    public CustomerController(CustomerService service) {
+    public CustomerController(CustomerService service, ImportJobService importJobService,
+                              CustomerExportService exportService,
+                              @Value("${cms.export.timeout:0}") Duration exportTimeout) {
         this.service = service;
+        this.importJobService = importJobService;
+        this.exportService = exportService;
+        this.exportTimeout = exportTimeout;
     }
 
     @GetMapping
-    public List<Customer> getAll() {
-        return service.getAllCustomers();
+    public ResponseEntity<?> getAll(@RequestParam(required = false) String name,
+                                    @RequestParam(required = false) String nic,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dobFrom,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dobTo,
+                                    @RequestParam(required = false) Long cityId,
+                                    @RequestParam(required = false) Long countryId,
+                                    @RequestParam(defaultValue = "id") String sort,
+                                    @RequestParam(defaultValue = "20") int size,
+                                    @RequestParam(required = false) String cursor) {
+        CustomerFilter filter = filter(name, nic, dobFrom, dobTo, cityId, countryId);
+        try {
+            return ResponseEntity.ok(service.getCustomers(filter, sort, size, cursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
+    // Every matching customer, written to the response as it is read: a JSON array, or the
+    // bulk upload layout as xlsx or csv. Streamed on an async request with its own timeout,
+    // cms.export.timeout (0 for none), since a full export can outlast the default one
+    @GetMapping("/export")
+    public WebAsyncTask<ResponseEntity<Void>> export(@RequestParam(required = false) String name,
+                                                     @RequestParam(required = false) String nic,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dobFrom,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dobTo,
+                                                     @RequestParam(required = false) Long cityId,
+                                                     @RequestParam(required = false) Long countryId,
+                                                     @RequestParam(defaultValue = "json") String format,
+                                                     HttpServletResponse response) {
+        CustomerFilter filter = filter(name, nic, dobFrom, dobTo, cityId, countryId);
+        StreamingResponseBody body;
+        MediaType contentType;
+        switch (format) {
+            case "json":
+                body = out -> exportService.writeJson(filter, out);
+                contentType = MediaType.APPLICATION_JSON;
+                break;
+            case "xlsx":
+                body = out -> exportService.writeExcel(filter, out);
+                contentType = MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+                break;
+            case "csv":
+                body = out -> exportService.writeCsv(filter, out);
+                contentType = new MediaType("text", "csv", StandardCharsets.UTF_8);
+                break;
+            default:
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
+        response.setContentType(contentType.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"customers." + format + "\"");
+        long timeout = exportTimeout.isZero() ? -1 : exportTimeout.toMillis();
+        return new WebAsyncTask<>(timeout, () -> {
+            body.writeTo(response.getOutputStream());
+            response.flushBuffer();
+            // the body is already written; null tells MVC the response is complete
+            return null;
+        });
+    }
+
+    // The ETag carries the version, for If-Match on a later PUT or PATCH
     @GetMapping("/{id}")
-    public Customer getOne(@PathVariable Long id) {
-        return service.getCustomer(id);
+    public ResponseEntity<Customer> getOne(@PathVariable Long id) {
+        Customer customer = service.getCustomer(id);
+        if (customer == null) return ResponseEntity.ok().build();
+        return ResponseEntity.ok().eTag(String.valueOf(customer.getVersion())).body(customer);
     }
 
+    // Who is calling: the customers holding the number, in whatever form it was dialled
+    @GetMapping("/by-mobile/{number}")
+    public ResponseEntity<?> byMobile(@PathVariable String number) {
+        try {
+            return ResponseEntity.ok(service.getCustomersByMobile(number));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Ancestors and descendants flattened as id/name/parentId, up to depth generations each way
+    @GetMapping("/{id}/family")
+    public ResponseEntity<List<FamilyMember>> family(@PathVariable Long id,
+                                                     @RequestParam(defaultValue = "3") int depth) {
+        List<FamilyMember> family = service.getFamily(id, depth);
+        return family != null ? ResponseEntity.ok(family) : ResponseEntity.notFound().build();
+    }
 
     @PostMapping
     public ResponseEntity<?> create(@RequestBody CustomerDTO dto) {
@@ -38,33 +148,115 @@ public class CustomerController {
             Customer created = service.createCustomer(dto);
             return ResponseEntity.ok(created);
         } catch (Exception e) {
-            e.printStackTrace(); // log the full stack trace in console
+            log.error("Create failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Create failed: " + e.getMessage());
         }
     }
 
+    // Creates many customers in one call (upsert=true also updates by NIC); one result per item
+    @PostMapping("/batch")
+    public ResponseEntity<?> batch(@RequestBody List<CustomerDTO> dtos,
+                                   @RequestParam(defaultValue = "false") boolean upsert) {
+        if (dtos.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body("A batch can hold at most " + MAX_BATCH_SIZE + " customers.");
+        }
+        try {
+            List<BatchItemResult> results = service.saveBatch(dtos, upsert);
+            return ResponseEntity.ok(results);
+        } catch (Exception e) {
+            log.error("Batch of {} customers failed", dtos.size(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Batch failed: " + e.getMessage());
+        }
+    }
+
+    // Conditional when If-Match or the body's version is given: a stale version gets 409
     @PutMapping("/{id}")
-    public ResponseEntity<?> update(@PathVariable Long id, @RequestBody CustomerDTO dto) {
+    public ResponseEntity<?> update(@PathVariable Long id, @RequestBody CustomerDTO dto,
+                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expected = expectedVersion(ifMatch);
+        if (expected != null) dto.version = expected;
         try {
             Customer updated = service.updateCustomer(id, dto);
-            return ResponseEntity.ok(updated);
+            return ResponseEntity.ok().eTag(String.valueOf(updated.getVersion())).body(updated);
+        } catch (OptimisticLockingFailureException e) {
+            return conflict(id);
         } catch (Exception e) {
-            e.printStackTrace(); // check console for error details
+            log.error("Update of customer {} failed", id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Update failed: " + e.getMessage());
         }
     }
 
-    // Bulk upload endpoint for Excel file
+    // Sets only the given name, dateOfBirth or nic with a single UPDATE; 204 with the new ETag
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patch(@PathVariable Long id, @RequestBody CustomerPatchDTO patch,
+                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expected = expectedVersion(ifMatch);
+        if (expected != null) patch.version = expected;
+        try {
+            Long version = service.patchCustomer(id, patch);
+            if (version == null) return ResponseEntity.notFound().build();
+            return ResponseEntity.noContent().eTag(String.valueOf(version)).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return conflict(id);
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("NIC already exists");
+        }
+    }
+
+    // Bulk upload endpoint for Excel file; the import runs in the background
     @PostMapping("/upload")
-    public ResponseEntity<String> uploadCustomers(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> uploadCustomers(@RequestParam("file") MultipartFile file) {
         try {
-            service.bulkUpload(file);
-            return ResponseEntity.ok("File uploaded and customers processed successfully.");
+            ImportJob job = importJobService.submit(file);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Too many imports in progress, try again later.");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Failed to upload file: " + e.getMessage());
         }
     }
+
+    @GetMapping("/upload/{jobId}")
+    public ResponseEntity<ImportJob> uploadStatus(@PathVariable Long jobId) {
+        ImportJob job = importJobService.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    // The version in an If-Match ETag, or null when the header is absent or "*"
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) return null;
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) tag = tag.substring(2);
+        if (tag.length() > 1 && tag.startsWith("\"") && tag.endsWith("\"")) tag = tag.substring(1, tag.length() - 1);
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match must be an ETag from this API: " + ifMatch);
+        }
+    }
+
+    private static ResponseEntity<String> conflict(Long id) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("Customer " + id + " was changed by another request; reload it and try again.");
+    }
+
+    private static CustomerFilter filter(String name, String nic, LocalDate dobFrom, LocalDate dobTo,
+                                         Long cityId, Long countryId) {
+        CustomerFilter filter = new CustomerFilter();
+        filter.namePrefix = name;
+        filter.nic = nic;
+        filter.dobFrom = dobFrom;
+        filter.dobTo = dobTo;
+        filter.cityId = cityId;
+        filter.countryId = countryId;
+        return filter;
+    }
 }
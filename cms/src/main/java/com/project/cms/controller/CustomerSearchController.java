@@ -0,0 +1,41 @@
+package com.project.cms.controller;
+
+import com.project.cms.dto.CustomerSearchHit;
+import com.project.cms.service.CustomerSearchService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/customers/search")
+@CrossOrigin
+public class CustomerSearchController {
+    private static final int MAX_RESULTS = 100;
+
+    private final CustomerSearchService searchService;
+
+    public CustomerSearchController(CustomerSearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    // Partial name, NIC fragment, phone number or address words, best matches first
+    @GetMapping
+    public ResponseEntity<?> search(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+        if (q.trim().isEmpty()) {
+            return ResponseEntity.badRequest().body("Search text is required.");
+        }
+        List<CustomerSearchHit> hits = searchService.search(q, Math.min(Math.max(limit, 1), MAX_RESULTS));
+        return ResponseEntity.ok(hits);
+    }
+
+    // Rewrites the index from the database in the background
+    @PostMapping("/rebuild")
+    public ResponseEntity<String> rebuild() {
+        if (!searchService.rebuild()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A rebuild is already running.");
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body("Rebuild started.");
+    }
+}
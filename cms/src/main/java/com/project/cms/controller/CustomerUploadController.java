@@ -0,0 +1,90 @@
+package com.project.cms.controller;
+
+import com.project.cms.entity.ImportJob;
+import com.project.cms.entity.UploadSession;
+import com.project.cms.service.ChunkedUploadService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Bulk upload in chunks, for files too large to send in one request: start an upload with the
+ * file's size, PUT the bytes in order, each with its offset and sha-256 {@code Digest}, then
+ * complete it to start the import. After a dropped connection, GET the upload and resend from
+ * its {@code receivedBytes}.
+ */
+@RestController
+@RequestMapping("/api/customers/uploads")
+@CrossOrigin
+public class CustomerUploadController {
+
+    private final ChunkedUploadService uploadService;
+
+    public CustomerUploadController(ChunkedUploadService uploadService) {
+        this.uploadService = uploadService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> start(@RequestParam String fileName, @RequestParam long size) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(uploadService.start(fileName, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to start upload: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadSession> status(@PathVariable Long id) {
+        UploadSession session = uploadService.getSession(id);
+        return session != null ? ResponseEntity.ok(session) : ResponseEntity.notFound().build();
+    }
+
+    // The request body is read as a stream and written to disk as it arrives
+    @PutMapping(value = "/{id}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> chunk(@PathVariable Long id, @RequestParam long offset,
+                                   @RequestHeader(value = "Digest", required = false) String digest,
+                                   InputStream body) {
+        try {
+            UploadSession session = uploadService.appendChunk(id, offset, digest, body);
+            return session != null ? ResponseEntity.ok(session) : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to write chunk: " + e.getMessage());
+        }
+    }
+
+    // Starts the import; the job is polled at GET /api/customers/upload/{jobId}
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<?> complete(@PathVariable Long id) {
+        try {
+            ImportJob job = uploadService.complete(id);
+            return job != null ? ResponseEntity.status(HttpStatus.ACCEPTED).body(job) : ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Too many imports in progress, try again later.");
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> cancel(@PathVariable Long id) {
+        try {
+            return uploadService.cancel(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.project.cms.controller;
+
+import com.project.cms.dto.MobileMigrationStatus;
+import com.project.cms.service.MobileNumberMigration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/customers/mobile-numbers/migration")
+@CrossOrigin
+public class MobileNumberMigrationController {
+
+    private final MobileNumberMigration migration;
+
+    public MobileNumberMigrationController(MobileNumberMigration migration) {
+        this.migration = migration;
+    }
+
+    // Normalizes the mobile numbers stored before normalization, in the background
+    @PostMapping
+    public ResponseEntity<?> start() {
+        MobileMigrationStatus status = migration.start();
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("The migration is already running.");
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+    }
+
+    // Progress of the running migration, or the outcome of the last one
+    @GetMapping
+    public MobileMigrationStatus status() {
+        return migration.getStatus();
+    }
+}
@@ -0,0 +1,24 @@
+package com.project.cms.dto;
+
+public class BatchItemResult {
+    public enum Status { CREATED, UPDATED, DUPLICATE, INVALID }
+
+    // position of the item in the request
+    public int index;
+    public String nic;
+    public Status status;
+    // the saved customer, or the existing one for a duplicate NIC
+    public Long id;
+    public String error;
+
+    public BatchItemResult(int index, String nic) {
+        this.index = index;
+        this.nic = nic;
+    }
+
+    public void set(Status status, Long id, String error) {
+        this.status = status;
+        this.id = id;
+        this.error = error;
+    }
+}
@@ -0,0 +1,11 @@
+package com.project.cms.dto;
+
+public class BulkUploadResult {
+    public long totalRows;
+    public long rowsProcessed;
+    public long inserted;
+    public long skippedMissingFields;
+    public long skippedExistingNic;
+    public long skippedDuplicateNic;
+    public long failed;
+}
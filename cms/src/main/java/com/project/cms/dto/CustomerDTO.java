@@ -11,7 +11,10 @@ public class CustomerDTO {
     public List<String> mobileNumbers;
     public List<AddressDTO> addresses;
     public Long parentCustomerId;
+    // the version the client last read; when set, an update of a newer customer is rejected
+    public Long version;
 
-    public void setName(String johnDoe) {
+    public void setName(String name) {
+        this.name = name;
     }
 }
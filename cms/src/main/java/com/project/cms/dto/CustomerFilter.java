@@ -0,0 +1,12 @@
+package com.project.cms.dto;
+
+import java.time.LocalDate;
+
+public class CustomerFilter {
+    public String namePrefix;
+    public String nic;
+    public LocalDate dobFrom;
+    public LocalDate dobTo;
+    public Long cityId;
+    public Long countryId;
+}
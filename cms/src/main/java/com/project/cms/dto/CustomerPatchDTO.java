@@ -0,0 +1,11 @@
+package com.project.cms.dto;
+
+import java.time.LocalDate;
+
+/** Fields of a {@code PATCH /api/customers/{id}}; the ones left null are not changed. */
+public class CustomerPatchDTO {
+    public String name;
+    public LocalDate dateOfBirth;
+    public String nic;
+    public Long version;
+}
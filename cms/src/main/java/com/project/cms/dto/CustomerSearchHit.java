@@ -0,0 +1,16 @@
+package com.project.cms.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/** One match from the customer search index, read from the index without touching the database. */
+public class CustomerSearchHit {
+    public Long id;
+    public String name;
+    public String nic;
+    public LocalDate dateOfBirth;
+    public List<String> mobileNumbers;
+    // each address as "line 1, line 2"
+    public List<String> addresses;
+    public float score;
+}
@@ -0,0 +1,16 @@
+package com.project.cms.dto;
+
+import java.util.List;
+
+public class CustomerSlice<T> {
+    public List<T> content;
+    public boolean hasNext;
+    // pass back as ?cursor= to fetch the next slice
+    public String nextCursor;
+
+    public CustomerSlice(List<T> content, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+}
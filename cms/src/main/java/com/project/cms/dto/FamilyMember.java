@@ -0,0 +1,16 @@
+package com.project.cms.dto;
+
+public class FamilyMember {
+    public Long id;
+    public String name;
+    public Long parentId;
+    // generations from the requested customer: negative for ancestors, positive for descendants
+    public int depth;
+
+    public FamilyMember(Long id, String name, Long parentId, int depth) {
+        this.id = id;
+        this.name = name;
+        this.parentId = parentId;
+        this.depth = depth;
+    }
+}
@@ -0,0 +1,18 @@
+package com.project.cms.dto;
+
+import java.time.LocalDateTime;
+
+public class MobileMigrationStatus {
+    public boolean running;
+    public long customersScanned;
+    public long customersUpdated;
+    // stored numbers that could not be normalized and were left as they were
+    public long invalidNumbers;
+    // repeated rows left by the old list mapping, removed before the unique key is added
+    public long duplicatesRemoved;
+    // customers up to this id have been migrated
+    public Long lastCustomerId;
+    public LocalDateTime startedAt;
+    public LocalDateTime finishedAt;
+    public String error;
+}
@@ -6,9 +6,15 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+        // customer listing filters by city/country through an EXISTS on the owning customer
+        @Index(name = "idx_address_city_customer", columnList = "city_id, customer_id"),
+        @Index(name = "idx_address_country_customer", columnList = "country_id, customer_id")
+})
 public class Address {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "address_seq")
+    @SequenceGenerator(name = "address_seq", sequenceName = "address_seq", allocationSize = 500)
     private Long id;
 
     private String addressLine1;
@@ -1,8 +1,11 @@
 package com.project.cms.entity;
 
+import com.project.cms.service.ReferenceDataListener;
+
 import javax.persistence.*;
 
 @Entity
+@EntityListeners(ReferenceDataListener.class)
 public class Country {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,18 +1,36 @@
 package com.project.cms.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.project.cms.service.CustomerIndexListener;
 
 import javax.persistence.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 @Entity
+@Table(indexes = {
+        // keyset pagination: sort key plus the id tie-breaker
+        @Index(name = "idx_customer_name_id", columnList = "name, id"),
+        @Index(name = "idx_customer_dob_id", columnList = "dateOfBirth, id")
+})
+@EntityListeners(CustomerIndexListener.class)
 public class Customer {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_seq")
+    @SequenceGenerator(name = "customer_seq", sequenceName = "customer_seq", allocationSize = 500)
     private Long id;
 
+    // optimistic lock: bumped by every update and checked in its WHERE clause; the default
+    // lets rows written outside JPA start at 0 like new ones
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0 not null")
+    private long version;
+
     @Column(nullable = false)
     private String name;
 
@@ -22,18 +40,37 @@ public class Customer {
     @Column(unique = true, nullable = false)
     private String nic;
 
+    // a set rather than a bag: Hibernate can then insert and delete single numbers, where
+    // any change to a bag rewrites the whole collection. Numbers are stored in E.164 form
+    // (see MobileNumberNormalizer); the unique key keeps each number once per customer,
+    // while customers sharing a phone may hold the same one. Tables created for the old list
+    // mapping have no primary key, so MobileNumberMigration removes their repeated rows and
+    // adds the key. The index serves reverse lookups.
     @ElementCollection
-    private List<String> mobileNumbers;
+    @CollectionTable(name = "customer_mobile_numbers",
+            joinColumns = @JoinColumn(name = "customer_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_customer_mobile_number",
+                    columnNames = {"customer_id", "mobile_numbers"}),
+            indexes = @Index(name = "idx_customer_mobile_number", columnList = "mobile_numbers"))
+    @Column(name = "mobile_numbers", nullable = false)
+    @OrderBy
+    private Set<String> mobileNumbers;
 
     @OneToMany(mappedBy = "customer", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
     private List<Address> addresses= new ArrayList<>();
 
 
-    @ManyToOne
+    // lazy and not serialized: the parent's own parent would otherwise be loaded and
+    // written out recursively; clients get the id from parentCustomerId instead
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_customer_id")
+    @JsonIgnore
     private Customer parentCustomer;
 
+    @Column(name = "parent_customer_id", insertable = false, updatable = false)
+    private Long parentCustomerId;
+
     @OneToMany(mappedBy = "parentCustomer", cascade = CascadeType.ALL)
     private List<Customer> familyMembers;
 
@@ -63,12 +100,12 @@ public class Customer {
         this.nic = nic;
     }
 
-    public List<String> getMobileNumbers() {
+    public Set<String> getMobileNumbers() {
         return mobileNumbers;
     }
 
-    public void setMobileNumbers(List<String> mobileNumbers) {
-        this.mobileNumbers = mobileNumbers;
+    public void setMobileNumbers(Collection<String> mobileNumbers) {
+        this.mobileNumbers = mobileNumbers == null ? null : new LinkedHashSet<>(mobileNumbers);
     }
 
     public Customer getParentCustomer() {
@@ -77,6 +114,11 @@ public class Customer {
 
     public void setParentCustomer(Customer parentCustomer) {
         this.parentCustomer = parentCustomer;
+        this.parentCustomerId = parentCustomer != null ? parentCustomer.getId() : null;
+    }
+
+    public Long getParentCustomerId() {
+        return parentCustomerId;
     }
 
     public List<Address> getAddresses() {
@@ -87,9 +129,15 @@ public class Customer {
         this.addresses = addresses;
     }
 
-    public void setId(long l) {
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
     }
 
-    public Object getId() {
+    public long getVersion() {
+        return version;
     }
 }
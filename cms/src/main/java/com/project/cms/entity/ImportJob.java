@@ -0,0 +1,191 @@
+package com.project.cms.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.project.cms.dto.BulkUploadResult;
+
+import javax.persistence.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Entity
+public class ImportJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String fileName;
+
+    @JsonIgnore
+    private String filePath;
+
+    // node that owns the spooled file; only that node can resume the job
+    @JsonIgnore
+    private String owner;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    private long totalRows;
+    private long rowsProcessed;
+    private long inserted;
+    private long skippedMissingFields;
+    private long skippedExistingNic;
+    private long skippedDuplicateNic;
+    private long failed;
+
+    @JsonIgnore
+    private int lastRowIndex;
+
+    @Column(length = 1000)
+    private String error;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    public BulkUploadResult toResult() {
+        BulkUploadResult result = new BulkUploadResult();
+        result.totalRows = totalRows;
+        result.rowsProcessed = rowsProcessed;
+        result.inserted = inserted;
+        result.skippedMissingFields = skippedMissingFields;
+        result.skippedExistingNic = skippedExistingNic;
+        result.skippedDuplicateNic = skippedDuplicateNic;
+        result.failed = failed;
+        return result;
+    }
+
+    public void applyProgress(BulkUploadResult result, int lastRowIndex) {
+        this.totalRows = result.totalRows;
+        this.rowsProcessed = result.rowsProcessed;
+        this.inserted = result.inserted;
+        this.skippedMissingFields = result.skippedMissingFields;
+        this.skippedExistingNic = result.skippedExistingNic;
+        this.skippedDuplicateNic = result.skippedDuplicateNic;
+        this.failed = result.failed;
+        this.lastRowIndex = lastRowIndex;
+    }
+
+    public long getSkipped() {
+        return skippedMissingFields + skippedExistingNic + skippedDuplicateNic;
+    }
+
+    public double getRowsPerSecond() {
+        if (startedAt == null || rowsProcessed == 0) return 0;
+        LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+        long millis = Duration.between(startedAt, end).toMillis();
+        return millis > 0 ? rowsProcessed * 1000.0 / millis : 0;
+    }
+
+    public Long getEtaSeconds() {
+        if (status != Status.RUNNING || totalRows == 0) return null;
+        double rate = getRowsPerSecond();
+        if (rate == 0) return null;
+        return (long) Math.ceil(Math.max(totalRows - rowsProcessed, 0) / rate);
+    }
+
+    // Getters & Setters
+    public Long getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public long getRowsProcessed() {
+        return rowsProcessed;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getSkippedMissingFields() {
+        return skippedMissingFields;
+    }
+
+    public long getSkippedExistingNic() {
+        return skippedExistingNic;
+    }
+
+    public long getSkippedDuplicateNic() {
+        return skippedDuplicateNic;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public int getLastRowIndex() {
+        return lastRowIndex;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -1,8 +1,76 @@
 package com.project.cms.repository;
 
 import com.project.cms.entity.Customer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface CustomerRepository extends JpaRepository<Customer, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface CustomerRepository extends JpaRepository<Customer, Long>, CustomerRepositoryCustom {
     boolean existsByNic(String nic);
-}
\ No newline at end of file
+
+    // the customers a batch upsert diffs against, with the addresses it compares in the same
+    // select rather than one lazy load per customer
+    @EntityGraph(attributePaths = {"addresses", "addresses.city", "addresses.city.country", "addresses.country"})
+    @Query("select distinct c from Customer c where c.nic in :nics")
+    List<Customer> findByNicIn(@Param("nics") Collection<String> nics);
+
+    // addresses and their reference data come back in the same select; joining the mobile
+    // numbers as well would repeat each address once per number in the addresses bag, so
+    // they are batch fetched
+    @EntityGraph(attributePaths = {"addresses", "addresses.city", "addresses.city.country", "addresses.country"})
+    Optional<Customer> findWithAddressesById(Long id);
+
+    // a seek on idx_customer_mobile_number; the number must already be normalized
+    @EntityGraph(attributePaths = {"addresses", "addresses.city", "addresses.city.country", "addresses.country"})
+    @Query("select distinct c from Customer c join c.mobileNumbers m where m = :number order by c.id")
+    List<Customer> findByMobileNumber(@Param("number") String number);
+
+    // the next ids after a keyset position, for jobs that walk every customer in batches
+    @Query("select c.id from Customer c where c.id > :after order by c.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable page);
+
+    @Query("select c.version from Customer c where c.id = :id")
+    Long findVersionById(@Param("id") Long id);
+
+    @Query("select c.nic from Customer c where c.nic in :nics")
+    List<String> findExistingNics(@Param("nics") Collection<String> nics);
+
+    /**
+     * Ancestors and descendants of a customer up to {@code depth} generations each way, as
+     * rows of (id, name, parent id, depth) with ancestors at negative depths. The depth bound
+     * also stops the recursion if a bad parent link has formed a cycle; rows can then repeat.
+     */
+    @Query(value = "WITH RECURSIVE ancestors (id, name, parent_id, depth) AS ("
+            + " SELECT c.id, c.name, c.parent_customer_id, 0 FROM customer c WHERE c.id = :id"
+            + " UNION ALL"
+            + " SELECT p.id, p.name, p.parent_customer_id, a.depth - 1"
+            + " FROM customer p JOIN ancestors a ON p.id = a.parent_id WHERE a.depth > -:depth"
+            + "), descendants (id, name, parent_id, depth) AS ("
+            + " SELECT c.id, c.name, c.parent_customer_id, 0 FROM customer c WHERE c.id = :id"
+            + " UNION ALL"
+            + " SELECT ch.id, ch.name, ch.parent_customer_id, d.depth + 1"
+            + " FROM customer ch JOIN descendants d ON ch.parent_customer_id = d.id WHERE d.depth < :depth"
+            + ")"
+            + " SELECT id, name, parent_id, depth FROM ancestors"
+            + " UNION ALL"
+            + " SELECT id, name, parent_id, depth FROM descendants WHERE depth > 0",
+            nativeQuery = true)
+    List<Object[]> findFamilyRows(@Param("id") Long id, @Param("depth") int depth);
+
+    // ids up the parent chain, nearest first; bounded by depth like findFamilyRows
+    @Query(value = "WITH RECURSIVE ancestors (id, parent_id, depth) AS ("
+            + " SELECT c.id, c.parent_customer_id, 0 FROM customer c WHERE c.id = :id"
+            + " UNION ALL"
+            + " SELECT p.id, p.parent_customer_id, a.depth + 1"
+            + " FROM customer p JOIN ancestors a ON p.id = a.parent_id WHERE a.depth < :depth"
+            + ")"
+            + " SELECT id FROM ancestors ORDER BY depth",
+            nativeQuery = true)
+    List<Number> findAncestorIds(@Param("id") Long id, @Param("depth") int depth);
+}
@@ -0,0 +1,22 @@
+package com.project.cms.repository;
+
+import com.project.cms.dto.CustomerFilter;
+import com.project.cms.dto.CustomerPatchDTO;
+import com.project.cms.entity.Customer;
+
+import java.util.List;
+
+public interface CustomerRepositoryCustom {
+    /**
+     * Returns up to {@code limit} customers matching the filter, ordered by {@code sort} then id,
+     * starting after {@code after} (or from the beginning when it is null).
+     */
+    List<Customer> findSlice(CustomerFilter filter, CustomerSort sort, boolean descending, KeysetCursor after, int limit);
+
+    /**
+     * Sets the non-null fields of {@code patch} and bumps the version in a single UPDATE,
+     * without loading the customer. When {@code patch.version} is set only that version is
+     * updated. Returns the number of rows changed, 0 or 1.
+     */
+    int patch(Long id, CustomerPatchDTO patch);
+}
@@ -0,0 +1,89 @@
+package com.project.cms.repository;
+
+import com.project.cms.dto.CustomerFilter;
+import com.project.cms.dto.CustomerPatchDTO;
+import com.project.cms.entity.Address;
+import com.project.cms.entity.Customer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CustomerRepositoryImpl implements CustomerRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<Customer> findSlice(CustomerFilter filter, CustomerSort sort, boolean descending, KeysetCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Customer> query = cb.createQuery(Customer.class);
+        Root<Customer> customer = query.from(Customer.class);
+
+        List<Predicate> where = new ArrayList<>();
+        if (filter.namePrefix != null && !filter.namePrefix.isEmpty()) {
+            where.add(cb.like(customer.get("name"), escapeLike(filter.namePrefix) + "%", '\\'));
+        }
+        if (filter.nic != null && !filter.nic.isEmpty()) {
+            where.add(cb.equal(customer.get("nic"), filter.nic));
+        }
+        if (filter.dobFrom != null) {
+            where.add(cb.greaterThanOrEqualTo(customer.get("dateOfBirth"), filter.dobFrom));
+        }
+        if (filter.dobTo != null) {
+            where.add(cb.lessThanOrEqualTo(customer.get("dateOfBirth"), filter.dobTo));
+        }
+        if (filter.cityId != null || filter.countryId != null) {
+            // EXISTS rather than a join so customers with several matching addresses appear once
+            Subquery<Long> addresses = query.subquery(Long.class);
+            Root<Address> address = addresses.from(Address.class);
+            List<Predicate> match = new ArrayList<>();
+            match.add(cb.equal(address.get("customer"), customer));
+            if (filter.cityId != null) match.add(cb.equal(address.get("city").get("id"), filter.cityId));
+            if (filter.countryId != null) match.add(cb.equal(address.get("country").get("id"), filter.countryId));
+            addresses.select(cb.literal(1L)).where(match.toArray(new Predicate[0]));
+            where.add(cb.exists(addresses));
+        }
+
+        Path<Comparable> key = customer.get(sort.getAttribute());
+        Path<Long> id = customer.get("id");
+        if (after != null) {
+            Comparable value = after.getValue();
+            Predicate beyond = descending ? cb.lessThan(key, value) : cb.greaterThan(key, value);
+            Predicate tie = cb.and(cb.equal(key, value),
+                    descending ? cb.lessThan(id, after.getId()) : cb.greaterThan(id, after.getId()));
+            where.add(sort == CustomerSort.ID ? beyond : cb.or(beyond, tie));
+        }
+
+        query.select(customer)
+                .where(where.toArray(new Predicate[0]))
+                .orderBy(descending ? cb.desc(key) : cb.asc(key), descending ? cb.desc(id) : cb.asc(id));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    @Override
+    public int patch(Long id, CustomerPatchDTO patch) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Customer> update = cb.createCriteriaUpdate(Customer.class);
+        Root<Customer> customer = update.from(Customer.class);
+
+        if (patch.name != null) update.set(customer.<String>get("name"), patch.name);
+        if (patch.dateOfBirth != null) update.set(customer.get("dateOfBirth"), patch.dateOfBirth);
+        if (patch.nic != null) update.set(customer.<String>get("nic"), patch.nic);
+        Path<Long> version = customer.get("version");
+        update.set(version, cb.sum(version, 1L));
+
+        Predicate match = cb.equal(customer.get("id"), id);
+        if (patch.version != null) match = cb.and(match, cb.equal(version, patch.version));
+        update.where(match);
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
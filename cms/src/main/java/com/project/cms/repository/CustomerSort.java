@@ -0,0 +1,58 @@
+package com.project.cms.repository;
+
+import com.project.cms.entity.Customer;
+
+import java.time.LocalDate;
+
+/**
+ * Sort orders supported by customer listing. Each one is backed by an index ending in
+ * {@code id}, which is also the tie-breaker, so keyset pagination can seek straight to a page.
+ */
+public enum CustomerSort {
+    ID("id"),
+    NAME("name"),
+    NIC("nic"),
+    DATE_OF_BIRTH("dateOfBirth");
+
+    private final String attribute;
+
+    CustomerSort(String attribute) {
+        this.attribute = attribute;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    /** Parses the attribute name, e.g. {@code "dateOfBirth"}. */
+    public static CustomerSort fromAttribute(String attribute) {
+        for (CustomerSort sort : values()) {
+            if (sort.attribute.equalsIgnoreCase(attribute)) return sort;
+        }
+        throw new IllegalArgumentException("Unsupported sort field: " + attribute);
+    }
+
+    public Comparable<?> parseValue(String value) {
+        switch (this) {
+            case ID:
+                return Long.valueOf(value);
+            case DATE_OF_BIRTH:
+                return LocalDate.parse(value);
+            default:
+                return value;
+        }
+    }
+
+    public String valueOf(Customer customer) {
+        switch (this) {
+            case ID:
+                return String.valueOf(customer.getId());
+            case NAME:
+                return customer.getName();
+            case NIC:
+                return customer.getNic();
+            default:
+                return customer.getDateOfBirth().toString();
+        }
+    }
+}
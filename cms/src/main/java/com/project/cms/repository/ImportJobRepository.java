@@ -0,0 +1,11 @@
+package com.project.cms.repository;
+
+import com.project.cms.entity.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+    List<ImportJob> findByOwnerAndStatusIn(String owner, Collection<ImportJob.Status> statuses);
+}
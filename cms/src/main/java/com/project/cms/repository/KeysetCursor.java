@@ -0,0 +1,59 @@
+package com.project.cms.repository;
+
+import com.project.cms.entity.Customer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last customer on a listing page: its sort key and id. The encoded form also
+ * records the sort it was issued for, so it can't be replayed against a different order.
+ */
+public class KeysetCursor {
+
+    private final Comparable<?> value;
+    private final long id;
+
+    private KeysetCursor(Comparable<?> value, long id) {
+        this.value = value;
+        this.id = id;
+    }
+
+    public static KeysetCursor after(CustomerSort sort, Customer last) {
+        return new KeysetCursor(sort.parseValue(sort.valueOf(last)), last.getId());
+    }
+
+    public static KeysetCursor decode(String token, CustomerSort sort, boolean descending) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\n", 3);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        if (parts.length != 3 || !parts[0].equals(prefix(sort, descending))) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort");
+        }
+        try {
+            return new KeysetCursor(sort.parseValue(parts[2]), Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public String encode(CustomerSort sort, boolean descending) {
+        String raw = prefix(sort, descending) + "\n" + id + "\n" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Comparable<?> getValue() {
+        return value;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    private static String prefix(CustomerSort sort, boolean descending) {
+        return sort.getAttribute() + (descending ? ",desc" : ",asc");
+    }
+}
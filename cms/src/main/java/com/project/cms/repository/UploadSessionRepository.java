@@ -0,0 +1,11 @@
+package com.project.cms.repository;
+
+import com.project.cms.entity.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, Long> {
+    List<UploadSession> findByOwnerAndUpdatedAtBefore(String owner, LocalDateTime cutoff);
+}
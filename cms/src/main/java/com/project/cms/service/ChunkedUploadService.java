@@ -0,0 +1,269 @@
+package com.project.cms.service;
+
+import com.project.cms.entity.ImportJob;
+import com.project.cms.entity.UploadSession;
+import com.project.cms.repository.UploadSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Receives bulk-upload files in chunks, written straight from the request body into a file in
+ * the import work directory through a fixed buffer, so a request holds the same memory whatever
+ * the size of the file or the chunk. Each chunk carries a SHA-256 digest and is only counted
+ * once it matches and is on disk; a chunk that fails is cut off again, so the client resends
+ * from {@link UploadSession#getReceivedBytes()}. The completed file becomes an
+ * {@link ImportJob} in place, without another copy.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final UploadSessionRepository sessionRepo;
+    private final ImportJobService importJobService;
+    private final long maxChunkSize;
+    private final long maxFileSize;
+    private final Duration expireAfter;
+
+    // sessions with a chunk being written or being completed; a second request is refused
+    private final Set<Long> busy = ConcurrentHashMap.newKeySet();
+
+    public ChunkedUploadService(UploadSessionRepository sessionRepo, ImportJobService importJobService,
+                                @Value("${cms.upload.max-chunk-size:16MB}") DataSize maxChunkSize,
+                                @Value("${cms.upload.max-file-size:2GB}") DataSize maxFileSize,
+                                @Value("${cms.upload.expire-after:24h}") Duration expireAfter) {
+        this.sessionRepo = sessionRepo;
+        this.importJobService = importJobService;
+        this.maxChunkSize = maxChunkSize.toBytes();
+        this.maxFileSize = maxFileSize.toBytes();
+        this.expireAfter = expireAfter;
+    }
+
+    public UploadSession start(String fileName, long size) throws IOException {
+        if (size <= 0 || size > maxFileSize) {
+            throw new IllegalArgumentException("size must be between 1 and " + maxFileSize + " bytes");
+        }
+        removeExpired();
+
+        Path file = Files.createTempFile(importJobService.getWorkDir(), "upload-", ".part");
+        UploadSession session = new UploadSession();
+        session.setFileName(fileName);
+        session.setFilePath(file.toString());
+        session.setOwner(importJobService.getOwner());
+        session.setStatus(UploadSession.Status.RECEIVING);
+        session.setSize(size);
+        session.setCreatedAt(LocalDateTime.now());
+        session.setUpdatedAt(session.getCreatedAt());
+        return sessionRepo.save(session);
+    }
+
+    public UploadSession getSession(Long id) {
+        return sessionRepo.findById(id).orElse(null);
+    }
+
+    /**
+     * Writes one chunk at {@code offset}, which has to be where the previous chunk ended.
+     *
+     * @param digest the request's {@code Digest} header, {@code sha-256=<base64>}
+     * @return the session with the chunk counted, or null if there is no such upload
+     * @throws IllegalArgumentException for a bad digest, a digest that does not match, or a
+     *                                  chunk that is too large or runs past the declared size
+     * @throws IllegalStateException    for a wrong offset, a complete upload, another chunk of
+     *                                  it being written, or an upload held by another node
+     */
+    public UploadSession appendChunk(Long id, long offset, String digest, InputStream body) throws IOException {
+        byte[] expected = sha256(digest);
+        UploadSession session = getSession(id);
+        if (session == null) return null;
+        checkReceiving(session);
+        lock(id);
+        try {
+            // re-read under the lock, in case a chunk finished in between
+            session = getSession(id);
+            checkReceiving(session);
+            if (offset != session.getReceivedBytes()) {
+                throw new IllegalStateException("Upload " + id + " continues at offset "
+                        + session.getReceivedBytes() + ", not " + offset);
+            }
+            long limit = Math.min(maxChunkSize, session.getSize() - offset);
+            long written = write(Paths.get(session.getFilePath()), offset, limit, expected, body);
+
+            session.setReceivedBytes(offset + written);
+            session.setUpdatedAt(LocalDateTime.now());
+            return sessionRepo.save(session);
+        } finally {
+            busy.remove(id);
+        }
+    }
+
+    /**
+     * Starts the import of a fully received upload. Completing it again returns the same job,
+     * so a client that lost the response can simply retry.
+     *
+     * @return the import job, or null if there is no such upload
+     */
+    public ImportJob complete(Long id) {
+        UploadSession session = getSession(id);
+        if (session == null) return null;
+        if (session.getStatus() == UploadSession.Status.COMPLETED) {
+            return importJobService.getJob(session.getImportJobId());
+        }
+        lock(id);
+        try {
+            session = getSession(id);
+            checkReceiving(session);
+            if (session.getReceivedBytes() != session.getSize()) {
+                throw new IllegalStateException("Upload " + id + " has " + session.getReceivedBytes()
+                        + " of " + session.getSize() + " bytes");
+            }
+
+            ImportJob job = importJobService.submit(Paths.get(session.getFilePath()), session.getFileName());
+            session.setStatus(UploadSession.Status.COMPLETED);
+            session.setImportJobId(job.getId());
+            session.setUpdatedAt(LocalDateTime.now());
+            sessionRepo.save(session);
+            return job;
+        } finally {
+            busy.remove(id);
+        }
+    }
+
+    /** Drops an upload that is still being received, with its partial file. */
+    public boolean cancel(Long id) {
+        lock(id);
+        try {
+            UploadSession session = getSession(id);
+            if (session == null) return false;
+            checkReceiving(session);
+            delete(session);
+            return true;
+        } finally {
+            busy.remove(id);
+        }
+    }
+
+    // Uploads abandoned for longer than cms.upload.expire-after; a completed upload's file
+    // belongs to its import job by then, so only the session goes.
+    @EventListener(ApplicationReadyEvent.class)
+    public void removeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(expireAfter);
+        for (UploadSession session : sessionRepo.findByOwnerAndUpdatedAtBefore(importJobService.getOwner(), cutoff)) {
+            if (!busy.add(session.getId())) continue;
+            try {
+                log.info("Removing upload {} of {}, untouched since {}", session.getId(), session.getFileName(),
+                        session.getUpdatedAt());
+                delete(session);
+            } finally {
+                busy.remove(session.getId());
+            }
+        }
+    }
+
+    private void lock(Long id) {
+        if (!busy.add(id)) {
+            throw new IllegalStateException("Upload " + id + " is busy with another request");
+        }
+    }
+
+    private void checkReceiving(UploadSession session) {
+        if (session.getStatus() != UploadSession.Status.RECEIVING) {
+            throw new IllegalStateException("Upload " + session.getId() + " is already complete");
+        }
+        if (!importJobService.getOwner().equals(session.getOwner())) {
+            throw new IllegalStateException("Upload " + session.getId() + " is held by " + session.getOwner());
+        }
+    }
+
+    private void delete(UploadSession session) {
+        if (session.getStatus() == UploadSession.Status.RECEIVING) {
+            try {
+                Files.deleteIfExists(Paths.get(session.getFilePath()));
+            } catch (IOException e) {
+                log.warn("Could not delete {}", session.getFilePath(), e);
+            }
+        }
+        sessionRepo.delete(session);
+    }
+
+    // Copies the body to the file from offset on. Whatever a failed or mismatching chunk
+    // wrote is truncated away again, as is anything left past offset by an earlier crash.
+    private static long write(Path file, long offset, long limit, byte[] expected, InputStream body) throws IOException {
+        MessageDigest sha256 = newSha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long written = 0;
+        boolean accepted = false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            try {
+                if (channel.size() > offset) channel.truncate(offset);
+                for (int n = body.read(buffer); n >= 0; n = body.read(buffer)) {
+                    if (written + n > limit) {
+                        throw new IllegalArgumentException("Chunk is larger than " + limit + " bytes; chunks are at most "
+                                + "cms.upload.max-chunk-size and may not run past the declared size");
+                    }
+                    sha256.update(buffer, 0, n);
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, n);
+                    while (chunk.hasRemaining()) {
+                        channel.write(chunk, offset + written + (n - chunk.remaining()));
+                    }
+                    written += n;
+                }
+                if (!MessageDigest.isEqual(expected, sha256.digest())) {
+                    throw new IllegalArgumentException("Chunk does not match its sha-256 digest");
+                }
+                // on disk before the offset moves past it, so a resumed upload never skips data
+                channel.force(false);
+                accepted = true;
+                return written;
+            } finally {
+                if (!accepted) channel.truncate(offset);
+            }
+        }
+    }
+
+    // The bytes of the sha-256 entry of a Digest header (RFC 3230), e.g. "sha-256=X48E9q...="
+    private static byte[] sha256(String digest) {
+        if (digest != null) {
+            for (String entry : digest.split(",")) {
+                int eq = entry.indexOf('=');
+                if (eq > 0 && entry.substring(0, eq).trim().equalsIgnoreCase("sha-256")) {
+                    try {
+                        byte[] bytes = Base64.getDecoder().decode(entry.substring(eq + 1).trim());
+                        if (bytes.length == 32) return bytes;
+                    } catch (IllegalArgumentException ignored) {}
+                }
+            }
+        }
+        throw new IllegalArgumentException("Each chunk needs a Digest header with its sha-256, as sha-256=<base64>");
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.project.cms.service;
+
+import com.project.cms.entity.City;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Read-only lookup structures over a city list: the cities of each country, and a sorted
+ * prefix array of lower-cased names for typeahead. Both answer from memory; a prefix
+ * search is a binary search followed by a scan over the matches.
+ */
+public class CityIndex {
+
+    private static final Comparator<City> BY_NAME = Comparator.comparing(CityIndex::key);
+
+    private final Map<Long, List<City>> byCountry;
+    private final String[] names;
+    private final City[] cities;
+
+    public CityIndex(List<City> all) {
+        cities = all.stream().filter(c -> c.getName() != null).sorted(BY_NAME).toArray(City[]::new);
+        names = new String[cities.length];
+        for (int i = 0; i < cities.length; i++) names[i] = key(cities[i]);
+
+        Map<Long, List<City>> grouped = new HashMap<>();
+        for (City city : all) {
+            if (city.getCountry() == null) continue;
+            grouped.computeIfAbsent(city.getCountry().getId(), id -> new ArrayList<>()).add(city);
+        }
+        grouped.replaceAll((id, list) -> {
+            list.sort(Comparator.comparing(City::getName, Comparator.nullsLast(Comparator.naturalOrder())));
+            return Collections.unmodifiableList(list);
+        });
+        byCountry = grouped;
+    }
+
+    /** Cities of the country sorted by name; empty when it has none. */
+    public List<City> byCountry(Long countryId) {
+        return byCountry.getOrDefault(countryId, Collections.emptyList());
+    }
+
+    /** Up to {@code limit} cities whose name starts with {@code prefix}, ignoring case, by name. */
+    public List<City> search(String prefix, int limit) {
+        String key = prefix.trim().toLowerCase(Locale.ROOT);
+        List<City> matches = new ArrayList<>(Math.min(limit, 16));
+        for (int i = lowerBound(key); i < names.length && matches.size() < limit && names[i].startsWith(key); i++) {
+            matches.add(cities[i]);
+        }
+        return matches;
+    }
+
+    // first index whose name is not less than key, so duplicates of key are not skipped
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = names.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (names[mid].compareTo(key) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private static String key(City city) {
+        return city.getName().toLowerCase(Locale.ROOT);
+    }
+}
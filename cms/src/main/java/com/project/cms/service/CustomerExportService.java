@@ -0,0 +1,221 @@
+package com.project.cms.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.cms.dto.CustomerFilter;
+import com.project.cms.entity.Address;
+import com.project.cms.entity.Customer;
+import com.project.cms.repository.CustomerRepository;
+import com.project.cms.repository.CustomerSort;
+import com.project.cms.repository.KeysetCursor;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streams every customer matching a filter to an output stream. Customers are read in id
+ * order one keyset chunk at a time, each in its own short read-only transaction, and the
+ * persistence context is cleared after every chunk, so heap use depends on the chunk size
+ * rather than on the number of customers exported.
+ */
+@Service
+public class CustomerExportService {
+
+    // matches hibernate.default_batch_fetch_size, so each collection loads in one query per chunk
+    static final int CHUNK_SIZE = 200;
+
+    // the layout bulkUpload reads: one address per row and the mobile numbers comma-joined
+    private static final String[] UPLOAD_COLUMNS = {"name", "dateOfBirth", "nic", "addressLine1", "addressLine2",
+            "cityId", "countryId", "mobileNumbers"};
+
+    // rows SXSSF keeps in memory before flushing them to its temp file
+    private static final int EXCEL_WINDOW = 100;
+
+    public interface ChunkHandler {
+        void handle(List<Customer> customers) throws IOException;
+    }
+
+    private final CustomerRepository customerRepo;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CustomerExportService(CustomerRepository customerRepo, TransactionTemplate transactionTemplate,
+                                 ObjectMapper objectMapper) {
+        this.customerRepo = customerRepo;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes the customers as a JSON array, in the same shape {@code GET /api/customers}
+     * returns them. The stream is flushed after every chunk and is not closed.
+     */
+    public void writeJson(CustomerFilter filter, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartArray();
+            forEachChunk(filter, customers -> {
+                for (Customer customer : customers) {
+                    json.writeObject(customer);
+                }
+                json.flush();
+            });
+            json.writeEndArray();
+        }
+    }
+
+    /**
+     * Writes the customers as an .xlsx file that {@code bulkUpload} can read back. Only the
+     * first address of each customer fits the upload layout. Rows go through SXSSF's sliding
+     * window to a compressed temp file, which is zipped into {@code out} at the end.
+     */
+    public void writeExcel(CustomerFilter filter, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet("Customers");
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat((short) 14); // built-in m/d/yy, read back as a date
+
+            Row header = sheet.createRow(0);
+            for (int c = 0; c < UPLOAD_COLUMNS.length; c++) header.createCell(c).setCellValue(UPLOAD_COLUMNS[c]);
+
+            int[] rowIndex = {1};
+            forEachChunk(filter, customers -> {
+                for (Customer customer : customers) {
+                    Row row = sheet.createRow(rowIndex[0]++);
+                    row.createCell(0).setCellValue(customer.getName());
+                    Cell dob = row.createCell(1);
+                    dob.setCellValue(customer.getDateOfBirth());
+                    dob.setCellStyle(dateStyle);
+                    row.createCell(2).setCellValue(customer.getNic());
+
+                    Address address = firstAddress(customer);
+                    if (address != null) {
+                        if (address.getAddressLine1() != null) row.createCell(3).setCellValue(address.getAddressLine1());
+                        if (address.getAddressLine2() != null) row.createCell(4).setCellValue(address.getAddressLine2());
+                        if (address.getCity() != null) row.createCell(5).setCellValue(address.getCity().getId());
+                        if (address.getCountry() != null) row.createCell(6).setCellValue(address.getCountry().getId());
+                    }
+                    row.createCell(7).setCellValue(mobileNumbers(customer));
+                }
+            });
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * Writes the customers as CSV in the upload column order, for consumers that do not need
+     * a workbook. Much faster than {@link #writeExcel} and written straight through.
+     * <p>
+     * Text that a spreadsheet would take for a formula, starting with {@code = + - @}, a tab or
+     * a carriage return, is quoted with a leading {@code '} so it opens as plain text. That
+     * includes normalised mobile numbers, which start with {@code +}; strip the {@code '} when
+     * reading the file as data.
+     */
+    public void writeCsv(CustomerFilter filter, OutputStream out) throws IOException {
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        csv.write(String.join(",", UPLOAD_COLUMNS));
+        csv.write("\r\n");
+        forEachChunk(filter, customers -> {
+            for (Customer customer : customers) {
+                Address address = firstAddress(customer);
+                csv.write(csvField(customer.getName()));
+                csv.write(',');
+                csv.write(customer.getDateOfBirth() != null ? customer.getDateOfBirth().toString() : "");
+                csv.write(',');
+                csv.write(csvField(customer.getNic()));
+                csv.write(',');
+                csv.write(csvField(address != null ? address.getAddressLine1() : null));
+                csv.write(',');
+                csv.write(csvField(address != null ? address.getAddressLine2() : null));
+                csv.write(',');
+                if (address != null && address.getCity() != null) csv.write(String.valueOf(address.getCity().getId()));
+                csv.write(',');
+                if (address != null && address.getCountry() != null) csv.write(String.valueOf(address.getCountry().getId()));
+                csv.write(',');
+                csv.write(csvField(mobileNumbers(customer)));
+                csv.write("\r\n");
+            }
+            csv.flush();
+        });
+        csv.flush();
+    }
+
+    /**
+     * Hands the matching customers to {@code handler} in id order, {@link #CHUNK_SIZE} at a
+     * time. Lazy associations can be read inside the handler; the entities are detached as
+     * soon as it returns.
+     */
+    public void forEachChunk(CustomerFilter filter, ChunkHandler handler) throws IOException {
+        KeysetCursor after = null;
+        do {
+            KeysetCursor from = after;
+            try {
+                after = readOnlyTransaction.execute(status -> {
+                    // the listing query, so each chunk is an index seek past the previous one
+                    // and its collections are batch fetched rather than loaded per customer
+                    List<Customer> customers = customerRepo.findSlice(filter, CustomerSort.ID, false, from, CHUNK_SIZE);
+                    try {
+                        if (!customers.isEmpty()) handler.handle(customers);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } finally {
+                        entityManager.clear();
+                    }
+                    return customers.size() < CHUNK_SIZE
+                            ? null
+                            : KeysetCursor.after(CustomerSort.ID, customers.get(customers.size() - 1));
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } while (after != null);
+    }
+
+    private static Address firstAddress(Customer customer) {
+        List<Address> addresses = customer.getAddresses();
+        return addresses == null || addresses.isEmpty() ? null : addresses.get(0);
+    }
+
+    private static String mobileNumbers(Customer customer) {
+        return customer.getMobileNumbers() == null ? "" : String.join(",", customer.getMobileNumbers());
+    }
+
+    static String csvField(String value) {
+        if (value == null || value.isEmpty()) return "";
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+            return "\"'" + value.replace("\"", "\"\"") + '"';
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char ch = value.charAt(i);
+            quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+}
@@ -0,0 +1,417 @@
+package com.project.cms.service;
+
+import com.project.cms.config.SqlObserver;
+import com.project.cms.config.VirtualThreads;
+import com.project.cms.dto.BulkUploadResult;
+import com.project.cms.entity.Address;
+import com.project.cms.entity.Customer;
+import com.project.cms.repository.CityRepository;
+import com.project.cms.repository.CountryRepository;
+import com.project.cms.repository.CustomerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Imports bulk-upload sheets through three stages connected by bounded queues:
+ * <ol>
+ *   <li>the calling thread streams the sheet into chunks and drops rows with missing fields
+ *       or NICs repeated in the file (both cheap and order dependent);</li>
+ *   <li>{@code cms.import.workers} threads drop NICs already in the database, resolve
+ *       City/Country ids and map rows to customers;</li>
+ *   <li>{@code cms.import.writers} threads commit each chunk in its own transaction.</li>
+ * </ol>
+ * Full queues block the stage before them, so a slow database throttles parsing instead of
+ * buffering the file in memory.
+ * <p>
+ * Workers and writers both take pool connections, workers briefly for their lookups and writers
+ * for each chunk's transaction, so one import can hold workers + writers connections and
+ * {@code cms.import.threads} imports run side by side. Left at 0, the worker count is capped so
+ * that all of them together leave {@code cms.import.pool-headroom} connections free for requests.
+ * <p>
+ * Chunks may commit out of order; progress is reported, and totals advance, only up to the
+ * last chunk with every earlier chunk committed, so a resumed import never skips rows.
+ * <p>
+ * Each stage's time per chunk, the SQL each chunk executed and the rows by outcome are
+ * recorded in {@link ImportMetrics}.
+ */
+@Service
+public class CustomerImportPipeline {
+
+    private static final int UPLOAD_COLUMNS = 8;
+    private static final int CHUNK_SIZE = 500;
+    private static final int NIC_COLUMN = 2;
+
+    private static final Chunk END = new Chunk(-1);
+
+    private final CustomerRepository customerRepo;
+    private final CountryRepository countryRepo;
+    private final CityRepository cityRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final MobileNumberNormalizer mobileNormalizer;
+    private final ImportMetrics metrics;
+    private final SqlObserver sqlObserver;
+    private final int workers;
+    private final int writers;
+    private final boolean virtualThreads;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CustomerImportPipeline(CustomerRepository customerRepo, CountryRepository countryRepo,
+                                  CityRepository cityRepo, TransactionTemplate transactionTemplate,
+                                  MobileNumberNormalizer mobileNormalizer, MeterRegistry meterRegistry,
+                                  SqlObserver sqlObserver,
+                                  @Value("${cms.import.workers:0}") int workers,
+                                  @Value("${cms.import.writers:2}") int writers,
+                                  @Value("${cms.import.threads:2}") int concurrentImports,
+                                  @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                  @Value("${cms.import.pool-headroom:2}") int poolHeadroom,
+                                  @Value("${cms.virtual-threads.enabled:false}") boolean virtualThreads) {
+        this.customerRepo = customerRepo;
+        this.countryRepo = countryRepo;
+        this.cityRepo = cityRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.mobileNormalizer = mobileNormalizer;
+        this.metrics = new ImportMetrics(meterRegistry);
+        this.sqlObserver = sqlObserver;
+        this.writers = Math.max(writers, 1);
+        this.workers = workers > 0 ? workers : defaultWorkers(Runtime.getRuntime().availableProcessors(),
+                poolSize - poolHeadroom, Math.max(concurrentImports, 1), this.writers);
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Imports an uploaded sheet in chunks of {@value #CHUNK_SIZE} rows, each committed in its own
+     * transaction. A chunk that fails to commit is retried row by row so one bad row only fails
+     * itself.
+     *
+     * @param result        totals to add to; a resumed import passes the totals saved so far
+     * @param startAfterRow sheet rows up to and including this index are skipped
+     * @param listener      notified as chunks are committed, may be null
+     */
+    public BulkUploadResult importFile(File file, BulkUploadResult result, int startAfterRow, ImportListener listener) {
+        Run run = new Run(result, listener);
+        ExecutorService stages = Executors.newFixedThreadPool(workers + writers, virtualThreads
+                ? VirtualThreads.factory("import-stage-") : new CustomizableThreadFactory("import-stage-"));
+        try {
+            for (int i = 0; i < workers; i++) stages.execute(run::mapChunks);
+            for (int i = 0; i < writers; i++) stages.execute(run::writeChunks);
+
+            run.readFile(file, startAfterRow);
+            run.awaitWriters();
+            return result;
+        } catch (IOException e) {
+            throw new RuntimeException("Error processing Excel file: " + e.getMessage(), e);
+        } finally {
+            stages.shutdownNow();
+        }
+    }
+
+    // One per core, but no more than each concurrent import's share of the connections, less its
+    // writers; at least one
+    static int defaultWorkers(int cores, int connections, int concurrentImports, int writers) {
+        return Math.max(Math.min(cores, connections / concurrentImports - writers), 1);
+    }
+
+    private static class Chunk {
+        final long seq;
+        final BulkUploadResult counts = new BulkUploadResult();
+        List<Object[]> rows = new ArrayList<>(CHUNK_SIZE);
+        int lastRowIndex;
+        long sqlStatements;
+        long sqlNanos;
+
+        final List<Object[]> mapped = new ArrayList<>();
+        final List<Customer> customers = new ArrayList<>();
+
+        Chunk(long seq) {
+            this.seq = seq;
+        }
+    }
+
+    // State shared by the stages of one import.
+    private class Run {
+        final BulkUploadResult totals;
+        final ImportListener listener;
+        final DuplicateNicFilter duplicates = new DuplicateNicFilter(customerRepo, NIC_COLUMN);
+
+        final BlockingQueue<Chunk> parsed = new ArrayBlockingQueue<>(workers * 2);
+        final BlockingQueue<Chunk> mapped = new ArrayBlockingQueue<>(writers * 2);
+        final AtomicInteger activeWorkers = new AtomicInteger(workers);
+        final CountDownLatch writersDone = new CountDownLatch(writers);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // guarded by this
+        final Map<Long, Chunk> committed = new HashMap<>();
+        long nextSeq;
+
+        Chunk current = new Chunk(0);
+        long chunkStarted;
+
+        Run(BulkUploadResult totals, ImportListener listener) {
+            this.totals = totals;
+            this.listener = listener;
+        }
+
+        void readFile(File file, int startAfterRow) throws IOException {
+            try {
+                chunkStarted = System.nanoTime();
+                new StreamingSheetReader(UPLOAD_COLUMNS)
+                        .onDimension(lastRowIndex -> {
+                            synchronized (this) {
+                                if (totals.totalRows == 0) totals.totalRows = lastRowIndex;
+                            }
+                        })
+                        .read(file, (rowIndex, cells) -> {
+                            if (rowIndex <= Math.max(startAfterRow, 0)) return; // header row or already imported
+
+                            current.rows.add(cells);
+                            current.lastRowIndex = rowIndex;
+                            if (current.rows.size() == CHUNK_SIZE) {
+                                dispatch(current);
+                                current = new Chunk(current.seq + 1);
+                                chunkStarted = System.nanoTime();
+                            }
+                        });
+
+                if (!current.rows.isEmpty()) {
+                    dispatch(current);
+                }
+            } finally {
+                for (int i = 0; i < workers; i++) put(parsed, END);
+            }
+        }
+
+        void dispatch(Chunk chunk) {
+            BulkUploadResult counts = chunk.counts;
+            counts.rowsProcessed = chunk.rows.size();
+
+            List<Object[]> complete = new ArrayList<>(chunk.rows.size());
+            for (Object[] cells : chunk.rows) {
+                // name, date of birth and NIC are required
+                if (cells[0] == null || cells[1] == null || cells[2] == null) {
+                    counts.skippedMissingFields++;
+                } else {
+                    complete.add(cells);
+                }
+            }
+            chunk.rows = duplicates.retainFirstOccurrences(complete, counts);
+            // reading and filtering the chunk, but not the wait for a worker to take it
+            metrics.parse.record(System.nanoTime() - chunkStarted, TimeUnit.NANOSECONDS);
+            put(parsed, chunk);
+        }
+
+        void mapChunks() {
+            ReferenceDataResolver references = new ReferenceDataResolver(cityRepo, countryRepo);
+            try {
+                for (Chunk chunk = parsed.take(); chunk != END; chunk = parsed.take()) {
+                    observeSql(chunk, next -> mapChunk(next, references));
+                    put(mapped, chunk);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                fail(t);
+            } finally {
+                // the last worker out tells the writers; after a failure they are interrupted instead
+                if (activeWorkers.decrementAndGet() == 0 && failure.get() == null) {
+                    try {
+                        for (int i = 0; i < writers; i++) put(mapped, END);
+                    } catch (RuntimeException ignored) {}
+                }
+            }
+        }
+
+        void mapChunk(Chunk chunk, ReferenceDataResolver references) {
+            long started = System.nanoTime();
+            List<Object[]> accepted = duplicates.retainNotInDatabase(chunk.rows, chunk.counts);
+            chunk.rows = null;
+            long checked = System.nanoTime();
+            references.preload(idColumn(accepted, 5), idColumn(accepted, 6));
+            long loaded = System.nanoTime();
+
+            for (Object[] cells : accepted) {
+                try {
+                    chunk.customers.add(mapRow(cells, references));
+                    chunk.mapped.add(cells);
+                } catch (RuntimeException e) {
+                    chunk.counts.failed++;
+                }
+            }
+            metrics.nicCheck.record(checked - started, TimeUnit.NANOSECONDS);
+            metrics.referenceLookup.record(loaded - checked, TimeUnit.NANOSECONDS);
+            metrics.map.record(System.nanoTime() - loaded, TimeUnit.NANOSECONDS);
+        }
+
+        void writeChunks() {
+            ReferenceDataResolver references = new ReferenceDataResolver(cityRepo, countryRepo);
+            try {
+                for (Chunk chunk = mapped.take(); chunk != END; chunk = mapped.take()) {
+                    long started = System.nanoTime();
+                    observeSql(chunk, next -> persist(next, references));
+                    metrics.write.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    metrics.recordSql(chunk.sqlStatements, chunk.sqlNanos);
+                    committed(chunk);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                fail(t);
+            } finally {
+                writersDone.countDown();
+            }
+        }
+
+        // Runs a stage on the chunk, adding the SQL it executes to the chunk's totals and naming
+        // the chunk in the SQL log.
+        void observeSql(Chunk chunk, Consumer<Chunk> stage) {
+            String previousContext = sqlObserver.setContext("import chunk " + chunk.seq);
+            long statements = sqlObserver.statements();
+            long nanos = sqlObserver.nanos();
+            try {
+                stage.accept(chunk);
+            } finally {
+                chunk.sqlStatements += sqlObserver.statements() - statements;
+                chunk.sqlNanos += sqlObserver.nanos() - nanos;
+                sqlObserver.setContext(previousContext);
+            }
+        }
+
+        void persist(Chunk chunk, ReferenceDataResolver references) {
+            if (chunk.customers.isEmpty()) return;
+            try {
+                transactionTemplate.executeWithoutResult(status -> saveBatch(chunk.customers));
+                chunk.counts.inserted += chunk.customers.size();
+            } catch (RuntimeException e) {
+                for (Object[] cells : chunk.mapped) {
+                    try {
+                        Customer customer = mapRow(cells, references);
+                        transactionTemplate.executeWithoutResult(status -> saveBatch(Collections.singletonList(customer)));
+                        chunk.counts.inserted++;
+                    } catch (RuntimeException rowError) {
+                        chunk.counts.failed++;
+                    }
+                }
+            }
+        }
+
+        synchronized void committed(Chunk chunk) {
+            committed.put(chunk.seq, chunk);
+
+            int lastRowIndex = -1;
+            for (Chunk next = committed.remove(nextSeq); next != null; next = committed.remove(nextSeq)) {
+                addCounts(totals, next.counts);
+                metrics.countRows(next.counts);
+                lastRowIndex = next.lastRowIndex;
+                nextSeq++;
+            }
+            if (lastRowIndex >= 0 && listener != null) {
+                listener.chunkCommitted(totals, lastRowIndex);
+            }
+        }
+
+        void awaitWriters() {
+            try {
+                while (!writersDone.await(100, TimeUnit.MILLISECONDS)) {
+                    rethrowFailure();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Import interrupted", e);
+            }
+            rethrowFailure();
+        }
+
+        // Blocks while the queue is full, giving up once another stage has failed.
+        void put(BlockingQueue<Chunk> queue, Chunk chunk) {
+            try {
+                while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                    rethrowFailure();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Import interrupted", e);
+            }
+        }
+
+        void fail(Throwable t) {
+            failure.compareAndSet(null, t);
+        }
+
+        void rethrowFailure() {
+            Throwable t = failure.get();
+            if (t != null) {
+                throw new RuntimeException("Import failed: " + t.getMessage(), t);
+            }
+        }
+    }
+
+    private static void addCounts(BulkUploadResult into, BulkUploadResult chunk) {
+        into.rowsProcessed += chunk.rowsProcessed;
+        into.inserted += chunk.inserted;
+        into.skippedMissingFields += chunk.skippedMissingFields;
+        into.skippedExistingNic += chunk.skippedExistingNic;
+        into.skippedDuplicateNic += chunk.skippedDuplicateNic;
+        into.failed += chunk.failed;
+    }
+
+    private static Set<Long> idColumn(List<Object[]> rows, int column) {
+        Set<Long> ids = new HashSet<>();
+        for (Object[] cells : rows) {
+            long id = UploadCells.idOrNegative(cells[column]);
+            if (id >= 0) ids.add(id);
+        }
+        return ids;
+    }
+
+    private Customer mapRow(Object[] cells, ReferenceDataResolver references) {
+        String name = UploadCells.text(cells[0]);
+        LocalDate dateOfBirth = UploadCells.date(cells[1]);
+        String nic = UploadCells.text(cells[2]);
+        String addr1 = UploadCells.text(cells[3]);
+        String addr2 = UploadCells.text(cells[4]);
+        long cityId = UploadCells.id(cells[5]);
+        long countryId = UploadCells.id(cells[6]);
+        String mobileNumbers = UploadCells.text(cells[7]);
+
+        Customer customer = new Customer();
+        customer.setName(name);
+        customer.setNic(nic);
+        customer.setDateOfBirth(dateOfBirth);
+
+        List<String> mobileList = UploadCells.splitMobileNumbers(mobileNumbers);
+        mobileList.replaceAll(mobileNormalizer::normalize);
+        customer.setMobileNumbers(mobileList);
+
+        Address address = new Address();
+        address.setAddressLine1(addr1);
+        address.setAddressLine2(addr2);
+        address.setCity(references.city(cityId));
+        address.setCountry(references.country(countryId));
+        address.setCustomer(customer);
+
+        customer.setAddresses(Collections.singletonList(address));
+        return customer;
+    }
+
+    // Flush and detach each batch so the persistence context doesn't grow with the file.
+    private void saveBatch(List<Customer> customers) {
+        customerRepo.saveAll(customers);
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
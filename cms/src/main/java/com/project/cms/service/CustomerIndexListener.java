@@ -0,0 +1,30 @@
+package com.project.cms.service;
+
+import com.project.cms.entity.Customer;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA listener on {@code Customer} that queues every written customer for the search
+ * index; {@link CustomerSearchService} reindexes them once the transaction commits. Bulk
+ * JPQL updates bypass it, so their callers reindex explicitly.
+ */
+public class CustomerIndexListener {
+
+    private final ObjectProvider<CustomerSearchService> search;
+
+    public CustomerIndexListener(ObjectProvider<CustomerSearchService> search) {
+        this.search = search;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Customer customer) {
+        CustomerSearchService service = search.getIfAvailable();
+        if (service != null) service.reindexAfterCommit(customer);
+    }
+}
@@ -0,0 +1,430 @@
+package com.project.cms.service;
+
+import com.project.cms.dto.CustomerSearchHit;
+import com.project.cms.entity.Address;
+import com.project.cms.entity.Customer;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Lucene index of customers for the agents' search box. Each customer is one document:
+ * name and address words (exact, prefix and typo-tolerant), and the NIC and mobile numbers
+ * as keys plus 3-grams, so a fragment from anywhere in them matches. Prefixes and fragments
+ * are indexed as terms rather than expanded at query time, which keeps a search a handful
+ * of term lookups however many customers there are.
+ *
+ * <p>Writes are visible to searches after {@link #refresh()} and durable after
+ * {@link #commit()}.
+ *
+ * <p>Each document carries the customer's {@code version}, and a write older than the
+ * document already indexed is dropped. Transactions reindex after they commit, on their own
+ * threads, and a rebuild reads customers while they are being written, so the writes for one
+ * customer can arrive in any order; this keeps the newest. Versions written since the last
+ * refresh are held in memory, older ones are read from the document.
+ */
+public class CustomerSearchIndex implements Closeable {
+
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String NAME_PREFIX = "name_prefix";
+    private static final String ADDRESS = "address";
+    private static final String ADDRESS_PREFIX = "address_prefix";
+    private static final String NIC = "nic";
+    private static final String NIC_GRAM = "nic_gram";
+    private static final String MOBILE = "mobile";
+    private static final String MOBILE_GRAM = "mobile_gram";
+    private static final String DATE_OF_BIRTH = "dob";
+    private static final String GENERATION = "generation";
+    private static final String VERSION = "version";
+    // held for a deleted customer until the next refresh, so a late write can't bring it back
+    private static final long DELETED = Long.MAX_VALUE;
+
+    // longest word prefix that is indexed; longer words are indexed whole as well
+    private static final int MAX_PREFIX = 20;
+    private static final int GRAM = 3;
+    private static final int MAX_SEGMENTS_AFTER_REBUILD = 4;
+    private static final int MAX_QUERY_WORDS = 8;
+    private static final int MAX_QUERY_WORD = 32;
+    private static final Pattern PHONE_LIKE = Pattern.compile("[+\\d][\\d\\s().-]*");
+
+    private final IndexWriter writer;
+    private final SearcherManager searchers;
+    private final Analyzer words = words(false);
+    private volatile long generation;
+    // versions of the documents written since the last refresh, which searchers can't see yet
+    private final ConcurrentMap<String, Long> liveVersions = new ConcurrentHashMap<>();
+
+    public CustomerSearchIndex(Directory directory) throws IOException {
+        Map<String, Analyzer> prefixes = new HashMap<>();
+        prefixes.put(NAME_PREFIX, words(true));
+        prefixes.put(ADDRESS_PREFIX, words(true));
+        IndexWriterConfig config = new IndexWriterConfig(new PerFieldAnalyzerWrapper(words, prefixes));
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        writer = new IndexWriter(directory, config);
+        searchers = new SearcherManager(writer, null);
+
+        Map<String, String> committed = new HashMap<>();
+        Iterable<Map.Entry<String, String>> data = writer.getLiveCommitData();
+        if (data != null) data.forEach(e -> committed.put(e.getKey(), e.getValue()));
+        generation = Long.parseLong(committed.getOrDefault(GENERATION, "0"));
+    }
+
+    /**
+     * Adds the customers, replacing the documents they had, except where the document indexed
+     * is of a newer version. An equal version is rewritten, which moves it into a rebuild.
+     */
+    public void update(Collection<Customer> customers) throws IOException {
+        try {
+            for (Customer customer : customers) {
+                String id = String.valueOf(customer.getId());
+                // the check and the write happen under the map's lock for this id
+                liveVersions.compute(id, (key, live) -> {
+                    long indexed = live != null ? live : indexedVersion(key);
+                    if (indexed > customer.getVersion()) return live;
+                    try {
+                        writer.updateDocument(new Term(ID, key), document(customer));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return customer.getVersion();
+                });
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public void delete(Collection<Long> ids) throws IOException {
+        try {
+            for (Long id : ids) {
+                String key = String.valueOf(id);
+                liveVersions.compute(key, (k, live) -> {
+                    try {
+                        writer.deleteDocuments(new Term(ID, k));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return DELETED;
+                });
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Starts a rebuild: documents written from now on are marked with a new generation, and
+     * {@link #finishRebuild()} drops everything still carrying an older one. Searches keep
+     * seeing the complete old index in the meantime.
+     */
+    public void startRebuild() {
+        generation++;
+    }
+
+    /**
+     * Deletes the documents the rebuild did not rewrite, i.e. customers that no longer exist,
+     * and merges the index down to a few segments: every search pays its term lookups once per
+     * segment, and a rebuild leaves behind one small segment per flush.
+     */
+    public void finishRebuild() throws IOException {
+        BooleanQuery stale = new BooleanQuery.Builder()
+                .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(GENERATION, String.valueOf(generation))), BooleanClause.Occur.MUST_NOT)
+                .build();
+        writer.deleteDocuments(stale);
+        writer.forceMerge(MAX_SEGMENTS_AFTER_REBUILD);
+    }
+
+    /** Makes the writes so far visible to {@link #search}. */
+    public void refresh() throws IOException {
+        Map<String, Long> written = new HashMap<>(liveVersions);
+        searchers.maybeRefreshBlocking();
+        // the searcher now has these; a version written meanwhile stays, as it differs
+        written.forEach(liveVersions::remove);
+    }
+
+    /** Makes the writes so far durable. */
+    public void commit() throws IOException {
+        writer.setLiveCommitData(Collections.singletonMap(GENERATION, String.valueOf(generation)).entrySet());
+        writer.commit();
+    }
+
+    public int size() throws IOException {
+        IndexSearcher searcher = searchers.acquire();
+        try {
+            return searcher.getIndexReader().numDocs();
+        } finally {
+            searchers.release(searcher);
+        }
+    }
+
+    /**
+     * The best {@code limit} customers for {@code text}. Every word must match the name,
+     * an address, the NIC or a mobile number; input that looks like a phone number is taken
+     * as one number, ignoring spaces, dashes and brackets.
+     */
+    public List<CustomerSearchHit> search(String text, int limit) throws IOException {
+        IndexSearcher searcher = searchers.acquire();
+        try {
+            Query query = query(text, searcher);
+            if (query == null) return Collections.emptyList();
+            TopDocs top = searcher.search(query, limit);
+            List<CustomerSearchHit> hits = new ArrayList<>(top.scoreDocs.length);
+            for (ScoreDoc scoreDoc : top.scoreDocs) {
+                hits.add(hit(searcher.doc(scoreDoc.doc), scoreDoc.score));
+            }
+            return hits;
+        } finally {
+            searchers.release(searcher);
+        }
+    }
+
+    // the version of the customer's document as of the last refresh, or -1 when there is none
+    private long indexedVersion(String id) {
+        try {
+            IndexSearcher searcher = searchers.acquire();
+            try {
+                TopDocs top = searcher.search(new TermQuery(new Term(ID, id)), 1);
+                if (top.scoreDocs.length == 0) return -1;
+                IndexableField version = searcher.doc(top.scoreDocs[0].doc, Collections.singleton(VERSION)).getField(VERSION);
+                return version != null ? version.numericValue().longValue() : -1;
+            } finally {
+                searchers.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        searchers.close();
+        writer.close();
+    }
+
+    private Document document(Customer customer) {
+        Document doc = new Document();
+        doc.add(new StringField(ID, String.valueOf(customer.getId()), Field.Store.YES));
+        doc.add(new StringField(GENERATION, String.valueOf(generation), Field.Store.NO));
+        doc.add(new StoredField(VERSION, customer.getVersion()));
+        if (customer.getName() != null) {
+            doc.add(new TextField(NAME, customer.getName(), Field.Store.YES));
+            doc.add(new TextField(NAME_PREFIX, customer.getName(), Field.Store.NO));
+        }
+        if (customer.getNic() != null) {
+            String nic = key(customer.getNic());
+            doc.add(new StoredField(NIC, customer.getNic()));
+            doc.add(new StringField(NIC, nic, Field.Store.NO));
+            for (String gram : grams(nic)) doc.add(new StringField(NIC_GRAM, gram, Field.Store.NO));
+        }
+        if (customer.getDateOfBirth() != null) {
+            doc.add(new StoredField(DATE_OF_BIRTH, customer.getDateOfBirth().toString()));
+        }
+        if (customer.getMobileNumbers() != null) {
+            for (String number : customer.getMobileNumbers()) {
+                String digits = digits(number);
+                doc.add(new StoredField(MOBILE, number));
+                doc.add(new StringField(MOBILE, digits, Field.Store.NO));
+                for (String gram : grams(digits)) doc.add(new StringField(MOBILE_GRAM, gram, Field.Store.NO));
+            }
+        }
+        if (customer.getAddresses() != null) {
+            for (Address address : customer.getAddresses()) {
+                String lines = lines(address);
+                if (lines.isEmpty()) continue;
+                doc.add(new TextField(ADDRESS, lines, Field.Store.YES));
+                doc.add(new TextField(ADDRESS_PREFIX, lines, Field.Store.NO));
+            }
+        }
+        return doc;
+    }
+
+    private static CustomerSearchHit hit(Document doc, float score) {
+        CustomerSearchHit hit = new CustomerSearchHit();
+        hit.id = Long.valueOf(doc.get(ID));
+        hit.name = doc.get(NAME);
+        hit.nic = doc.get(NIC);
+        String dateOfBirth = doc.get(DATE_OF_BIRTH);
+        hit.dateOfBirth = dateOfBirth != null ? LocalDate.parse(dateOfBirth) : null;
+        hit.mobileNumbers = Arrays.asList(doc.getValues(MOBILE));
+        hit.addresses = Arrays.asList(doc.getValues(ADDRESS));
+        hit.score = score;
+        return hit;
+    }
+
+    private Query query(String text, IndexSearcher searcher) throws IOException {
+        String trimmed = text.trim();
+        List<String> queryWords = PHONE_LIKE.matcher(trimmed).matches()
+                ? Collections.singletonList(withoutDialPrefix(digits(trimmed)))
+                : analyze(trimmed);
+        if (queryWords.isEmpty() || queryWords.get(0).isEmpty()) return null;
+
+        BooleanQuery.Builder all = new BooleanQuery.Builder();
+        for (String word : queryWords.subList(0, Math.min(queryWords.size(), MAX_QUERY_WORDS))) {
+            String term = word.length() > MAX_QUERY_WORD ? word.substring(0, MAX_QUERY_WORD) : word;
+            // a word that is already some customer's name word is taken as spelt right; expanding
+            // it would only rescan the same postings under a few near-miss names
+            boolean known = searcher.getIndexReader().docFreq(new Term(NAME, term)) > 0;
+            all.add(matchQuery(term, !known), BooleanClause.Occur.MUST);
+            addExactBoosts(all, term);
+        }
+        return all.build();
+    }
+
+    // Decides whether a customer matches the word: a name or address word starting with it
+    // (which includes the word itself), a near miss of a name word, or a NIC or mobile number
+    // containing it. Each of these is one posting list, so the conjunction across words stays
+    // cheap even for common names.
+    private static Query matchQuery(String word, boolean fuzzy) {
+        BooleanQuery.Builder any = new BooleanQuery.Builder();
+        any.add(boost(new TermQuery(new Term(NAME_PREFIX, word)), 2), BooleanClause.Occur.SHOULD);
+        int edits = !fuzzy || word.length() < 4 ? 0 : word.length() < 8 ? 1 : 2;
+        if (edits > 0) {
+            // first letter must match: typos there are rare and it prunes most of the term dictionary
+            any.add(new FuzzyQuery(new Term(NAME, word), edits, 1, 50, true), BooleanClause.Occur.SHOULD);
+        }
+        any.add(boost(new TermQuery(new Term(ADDRESS_PREFIX, word)), 0.5f), BooleanClause.Occur.SHOULD);
+
+        String nic = key(word);
+        if (nic.length() >= GRAM) any.add(boost(allGrams(NIC_GRAM, nic), 4), BooleanClause.Occur.SHOULD);
+        String digits = digits(word);
+        if (digits.length() >= GRAM) any.add(boost(allGrams(MOBILE_GRAM, digits), 4), BooleanClause.Occur.SHOULD);
+        return any.build();
+    }
+
+    // Ranks whole-word and whole-number matches above prefixes and fragments. These are
+    // optional clauses next to the required ones, so they are only checked on customers that
+    // already match.
+    private static void addExactBoosts(BooleanQuery.Builder all, String word) {
+        all.add(boost(new TermQuery(new Term(NAME, word)), 3), BooleanClause.Occur.SHOULD);
+        all.add(boost(new TermQuery(new Term(ADDRESS, word)), 0.5f), BooleanClause.Occur.SHOULD);
+        String nic = key(word);
+        if (nic.length() >= GRAM) all.add(boost(new TermQuery(new Term(NIC, nic)), 8), BooleanClause.Occur.SHOULD);
+        String digits = digits(word);
+        if (digits.length() >= GRAM) all.add(boost(new TermQuery(new Term(MOBILE, digits)), 8), BooleanClause.Occur.SHOULD);
+    }
+
+    private static Query allGrams(String field, String value) {
+        BooleanQuery.Builder all = new BooleanQuery.Builder();
+        for (String gram : grams(value)) all.add(new TermQuery(new Term(field, gram)), BooleanClause.Occur.FILTER);
+        return new ConstantScoreQuery(all.build());
+    }
+
+    private static Query boost(Query query, float boost) {
+        return new BoostQuery(query, boost);
+    }
+
+    private List<String> analyze(String text) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream stream = words.tokenStream(NAME, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) tokens.add(term.toString());
+            stream.end();
+        }
+        return tokens;
+    }
+
+    // words split on Unicode word boundaries, lower-cased and folded to ASCII ("José" finds "Jose"),
+    // optionally expanded into every prefix up to MAX_PREFIX characters
+    private static Analyzer words(boolean prefixes) {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer source = new StandardTokenizer();
+                TokenStream stream = new ASCIIFoldingFilter(new LowerCaseFilter(source));
+                if (prefixes) stream = new EdgeNGramTokenFilter(stream, 1, MAX_PREFIX, true);
+                return new TokenStreamComponents(source, stream);
+            }
+        };
+    }
+
+    private static Set<String> grams(String value) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) grams.add(value.substring(i, i + GRAM));
+        return grams;
+    }
+
+    private static String lines(Address address) {
+        StringBuilder lines = new StringBuilder();
+        if (address.getAddressLine1() != null) lines.append(address.getAddressLine1());
+        if (address.getAddressLine2() != null && !address.getAddressLine2().isEmpty()) {
+            if (lines.length() > 0) lines.append(", ");
+            lines.append(address.getAddressLine2());
+        }
+        return lines.toString();
+    }
+
+    // letters and digits only, lower-cased, as NICs are compared
+    private static String key(String value) {
+        StringBuilder key = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (Character.isLetterOrDigit(ch)) key.append(Character.toLowerCase(ch));
+        }
+        return key.toString();
+    }
+
+    // Numbers are stored in E.164 form (+94771234567), so the 0 or 00 an agent dials before a
+    // national or international number is not part of any stored one.
+    private static String withoutDialPrefix(String digits) {
+        if (digits.startsWith("00")) return digits.substring(2);
+        if (digits.startsWith("0")) return digits.substring(1);
+        return digits;
+    }
+
+    private static String digits(String value) {
+        StringBuilder digits = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch >= '0' && ch <= '9') digits.append(ch);
+        }
+        return digits.toString();
+    }
+}
@@ -0,0 +1,224 @@
+package com.project.cms.service;
+
+import com.project.cms.dto.CustomerFilter;
+import com.project.cms.dto.CustomerSearchHit;
+import com.project.cms.entity.Customer;
+import com.project.cms.repository.CustomerRepository;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the {@link CustomerSearchIndex} in step with the database. Every transaction that
+ * writes customers reindexes them once it commits (see {@link CustomerIndexListener}), the
+ * index is committed to disk every {@code cms.search.commit-interval}, and
+ * {@link #rebuild()} rewrites it from the database, which is also how an empty or lost index
+ * is filled at startup. The index lives on the local disk, so each node keeps its own.
+ */
+@Service
+public class CustomerSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerSearchService.class);
+
+    // customers read back per query when reindexing after a commit
+    private static final int REINDEX_CHUNK = 500;
+
+    private final CustomerRepository customerRepo;
+    private final CustomerExportService exportService;
+    private final TransactionTemplate readTransaction;
+    private final CustomerSearchIndex index;
+    private final ScheduledExecutorService background;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public CustomerSearchService(CustomerRepository customerRepo, CustomerExportService exportService,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${cms.search.index-dir:}") String indexDir,
+                                 @Value("${cms.search.commit-interval:30s}") Duration commitInterval) throws IOException {
+        this.customerRepo = customerRepo;
+        this.exportService = exportService;
+        // reindexing runs after the writing transaction has committed, so it needs one of its own
+        this.readTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Directory directory = indexDir.isEmpty()
+                ? new ByteBuffersDirectory()
+                : FSDirectory.open(Files.createDirectories(Paths.get(indexDir)));
+        this.index = new CustomerSearchIndex(directory);
+
+        this.background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = commitInterval.toMillis();
+        background.scheduleWithFixedDelay(this::commit, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public List<CustomerSearchHit> search(String text, int limit) {
+        try {
+            return index.search(text, limit);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reindexes the customer once the current transaction commits, together with every other
+     * customer the transaction touched; straight away when there is no transaction. The
+     * document is built from the entity as it was written, without reading it back.
+     */
+    public void reindexAfterCommit(Customer customer) {
+        queue(customer.getId(), customer);
+    }
+
+    /** Like {@link #reindexAfterCommit(Customer)}, for a customer written without loading it. */
+    public void reindexAfterCommit(Long id) {
+        queue(id, null);
+    }
+
+    /**
+     * Starts rewriting the whole index from the database in the background. Searches keep
+     * answering from the old index until the new one is complete. Returns false when a
+     * rebuild is already running.
+     */
+    public boolean rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) return false;
+        background.execute(() -> {
+            long started = System.nanoTime();
+            try {
+                index.startRebuild();
+                exportService.forEachChunk(new CustomerFilter(), index::update);
+                index.finishRebuild();
+                index.refresh();
+                index.commit();
+                log.info("Rebuilt customer search index with {} customers in {} ms",
+                        index.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            } catch (Exception e) {
+                log.error("Customer search index rebuild failed", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() throws IOException {
+        if (index.size() == 0) rebuild();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        background.shutdownNow();
+        index.close(); // commits
+    }
+
+    // Collects the customers written by the current transaction (null for those to read
+    // back) and reindexes them once it commits; a rolled back transaction leaves the index alone.
+    @SuppressWarnings("unchecked")
+    private void queue(Long id, Customer customer) {
+        if (id == null) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reindex(Collections.singletonMap(id, customer));
+            return;
+        }
+        Map<Long, Customer> pending = (Map<Long, Customer>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<Long, Customer> written = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, written);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reindex(written);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CustomerSearchService.this);
+                }
+            });
+            pending = written;
+        }
+        if (customer != null || !pending.containsKey(id)) pending.put(id, customer);
+    }
+
+    // A failure here leaves the customers' old documents in place until their next write or
+    // a rebuild; it must not fail the request whose transaction has already committed.
+    private void reindex(Map<Long, Customer> written) {
+        try {
+            List<Customer> loaded = new ArrayList<>(written.size());
+            List<Long> toRead = new ArrayList<>();
+            written.forEach((id, customer) -> {
+                if (customer != null && Hibernate.isInitialized(customer.getMobileNumbers())
+                        && Hibernate.isInitialized(customer.getAddresses())) {
+                    loaded.add(customer);
+                } else {
+                    toRead.add(id);
+                }
+            });
+            index.update(loaded);
+            for (int from = 0; from < toRead.size(); from += REINDEX_CHUNK) {
+                readBack(toRead.subList(from, Math.min(from + REINDEX_CHUNK, toRead.size())));
+            }
+            index.refresh();
+        } catch (Exception e) {
+            log.error("Could not reindex customers {}", written.keySet(), e);
+        }
+    }
+
+    private void readBack(List<Long> ids) {
+        readTransaction.executeWithoutResult(status -> {
+            List<Customer> customers = customerRepo.findAllById(ids);
+            Set<Long> gone = new HashSet<>(ids);
+            for (Customer customer : customers) gone.remove(customer.getId());
+            try {
+                index.update(customers);
+                if (!gone.isEmpty()) index.delete(gone);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void commit() {
+        try {
+            index.commit();
+        } catch (Exception e) {
+            log.error("Could not commit customer search index", e);
+        }
+    }
+}
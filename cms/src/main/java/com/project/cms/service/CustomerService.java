@@ -1,7 +1,13 @@
 package com.project.cms.service;
 
 import com.project.cms.dto.AddressDTO;
+import com.project.cms.dto.BatchItemResult;
+import com.project.cms.dto.BulkUploadResult;
 import com.project.cms.dto.CustomerDTO;
+import com.project.cms.dto.CustomerFilter;
+import com.project.cms.dto.CustomerPatchDTO;
+import com.project.cms.dto.CustomerSlice;
+import com.project.cms.dto.FamilyMember;
 import com.project.cms.entity.Address;
 import com.project.cms.entity.City;
 import com.project.cms.entity.Country;
@@ -9,190 +15,454 @@ import com.project.cms.entity.Customer;
 import com.project.cms.repository.CityRepository;
 import com.project.cms.repository.CountryRepository;
 import com.project.cms.repository.CustomerRepository;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import com.project.cms.repository.CustomerSort;
+import com.project.cms.repository.KeysetCursor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.InputStream;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class CustomerService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_FAMILY_DEPTH = 20;
+    // how far up the new parent's chain populateCustomer looks for the customer being saved
+    private static final int MAX_ANCESTRY_CHECK = 1000;
+
     private final CustomerRepository customerRepo;
     private final CountryRepository countryRepo;
     private final CityRepository cityRepo;
 
-    public CustomerService(CustomerRepository customerRepo, CountryRepository countryRepo, CityRepository cityRepo) {
+    private final CustomerImportPipeline importPipeline;
+    private final CustomerSearchService searchService;
+    private final MobileNumberNormalizer mobileNormalizer;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int batchChunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CustomerService(CustomerRepository customerRepo, CountryRepository countryRepo, CityRepository cityRepo,
+                           CustomerImportPipeline importPipeline, CustomerSearchService searchService,
+                           MobileNumberNormalizer mobileNormalizer, TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${cms.batch.chunk-size:200}") int batchChunkSize) {
         this.customerRepo = customerRepo;
         this.countryRepo = countryRepo;
         this.cityRepo = cityRepo;
+        this.importPipeline = importPipeline;
+        this.searchService = searchService;
+        this.mobileNormalizer = mobileNormalizer;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.batchChunkSize = batchChunkSize;
     }
 
-    public List<Customer> getAllCustomers() {
-        return customerRepo.findAll();
+    /**
+     * Returns one slice of customers using keyset pagination: {@code cursor} is the
+     * {@code nextCursor} of the previous slice, so every page is an index seek.
+     *
+     * @param sort attribute name, optionally followed by {@code ,asc} or {@code ,desc}
+     */
+    @Transactional(readOnly = true)
+    public CustomerSlice<Customer> getCustomers(CustomerFilter filter, String sort, int size, String cursor) {
+        String[] sortParts = sort.split(",");
+        CustomerSort sortBy = CustomerSort.fromAttribute(sortParts[0].trim());
+        boolean descending = sortParts.length > 1 && "desc".equalsIgnoreCase(sortParts[1].trim());
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        KeysetCursor after = cursor == null || cursor.isEmpty() ? null : KeysetCursor.decode(cursor, sortBy, descending);
+
+        // one extra row tells us whether there is a next slice without a count query
+        List<Customer> customers = customerRepo.findSlice(filter, sortBy, descending, after, limit + 1);
+        boolean hasNext = customers.size() > limit;
+        if (hasNext) {
+            customers = new ArrayList<>(customers.subList(0, limit));
+        }
+        String nextCursor = hasNext
+                ? KeysetCursor.after(sortBy, customers.get(limit - 1)).encode(sortBy, descending)
+                : null;
+        return new CustomerSlice<>(customers, hasNext, nextCursor);
     }
 
+    @Transactional(readOnly = true)
     public Customer getCustomer(Long id) {
-        return customerRepo.findById(id).orElse(null);
+        return customerRepo.findWithAddressesById(id).orElse(null);
+    }
+
+    /**
+     * Customers holding the mobile number, written in any form {@link MobileNumberNormalizer}
+     * accepts; usually one, more when a phone is shared.
+     *
+     * @throws IllegalArgumentException when {@code number} is not a phone number
+     */
+    @Transactional(readOnly = true)
+    public List<Customer> getCustomersByMobile(String number) {
+        return customerRepo.findByMobileNumber(mobileNormalizer.normalize(number));
+    }
+
+    /**
+     * Ancestors and descendants of a customer, up to {@code depth} generations each way,
+     * flattened and ordered from the oldest generation down. Returns null when the customer
+     * does not exist.
+     */
+    @Transactional(readOnly = true)
+    public List<FamilyMember> getFamily(Long id, int depth) {
+        int generations = Math.min(Math.max(depth, 1), MAX_FAMILY_DEPTH);
+        List<Object[]> rows = customerRepo.findFamilyRows(id, generations);
+        if (rows.isEmpty()) return null;
+
+        // a cycle reaches the same customer more than once; keep the nearest position
+        Map<Long, FamilyMember> members = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            FamilyMember member = new FamilyMember(((Number) row[0]).longValue(), (String) row[1],
+                    row[2] == null ? null : ((Number) row[2]).longValue(), ((Number) row[3]).intValue());
+            members.merge(member.id, member, (kept, other) -> Math.abs(other.depth) < Math.abs(kept.depth) ? other : kept);
+        }
+        List<FamilyMember> family = new ArrayList<>(members.values());
+        family.sort(Comparator.comparingInt((FamilyMember m) -> m.depth).thenComparing(m -> m.id));
+        return family;
     }
 
     @Transactional
     public Customer createCustomer(CustomerDTO dto) {
+        timeTransaction("create");
         if (customerRepo.existsByNic(dto.nic)) {
             throw new RuntimeException("NIC already exists");
         }
 
         Customer customer = new Customer();
-        populateCustomer(customer, dto);
+        populateCustomer(customer, dto, new ReferenceDataResolver(cityRepo, countryRepo));
         return customerRepo.save(customer);
     }
 
+    /**
+     * Replaces the customer with {@code dto}. When {@code dto.version} is set and the customer
+     * has moved past it, nothing is changed and an {@link ObjectOptimisticLockingFailureException}
+     * is thrown; the same exception comes out of the commit if another update lands between
+     * our read and our write.
+     */
     @Transactional
     public Customer updateCustomer(Long id, CustomerDTO dto) {
-        Customer customer = customerRepo.findById(id)
+        timeTransaction("update");
+        Customer customer = customerRepo.findWithAddressesById(id)
                 .orElseThrow(() -> new RuntimeException("Customer not found with ID: " + id));
-        populateCustomer(customer, dto);
-        return customerRepo.save(customer);
+        if (dto.version != null && dto.version != customer.getVersion()) {
+            throw new ObjectOptimisticLockingFailureException(Customer.class, id);
+        }
+        if (!populateCustomer(customer, dto, new ReferenceDataResolver(cityRepo, countryRepo))) {
+            // nothing to write, so take the loaded graph (addresses cascade) out of the commit's
+            // dirty check; the session's flush mode stays as it was for whatever else it writes
+            entityManager.detach(customer);
+        }
+        return customer;
     }
 
-    private void populateCustomer(Customer customer, CustomerDTO dto) {
-        customer.setName(dto.name);
-        customer.setDateOfBirth(dto.dateOfBirth);
-        customer.setNic(dto.nic);
-        customer.setMobileNumbers(dto.mobileNumbers);
-
-        if (dto.parentCustomerId != null) {
-            Customer parent = customerRepo.findById(dto.parentCustomerId).orElse(null);
-            customer.setParentCustomer(parent);
+    /**
+     * Changes the name, date of birth or NIC with one UPDATE statement, leaving the addresses,
+     * numbers and parent alone. Returns the new version, or null when there is no such
+     * customer; throws {@link ObjectOptimisticLockingFailureException} when {@code patch.version}
+     * is set and no longer current.
+     */
+    @Transactional
+    public Long patchCustomer(Long id, CustomerPatchDTO patch) {
+        timeTransaction("patch");
+        if (patch.name == null && patch.dateOfBirth == null && patch.nic == null) {
+            throw new IllegalArgumentException("Nothing to update: give a name, dateOfBirth or nic");
+        }
+        if ((patch.name != null && patch.name.trim().isEmpty()) || (patch.nic != null && patch.nic.trim().isEmpty())) {
+            throw new IllegalArgumentException("Name and NIC cannot be blank");
         }
+        if (customerRepo.patch(id, patch) == 0) {
+            if (!customerRepo.existsById(id)) return null;
+            throw new ObjectOptimisticLockingFailureException(Customer.class, id);
+        }
+        searchService.reindexAfterCommit(id);
+        return patch.version != null ? patch.version + 1 : customerRepo.findVersionById(id);
+    }
 
-        if (dto.addresses != null) {
-            // Ensure list is initialized
-            if (customer.getAddresses() == null) {
-                customer.setAddresses(new ArrayList<>());
+    /**
+     * Creates customers from {@code dtos}, or with {@code upsert} also updates the ones whose
+     * NIC already exists. Items are written {@code cms.batch.chunk-size} at a time, one
+     * transaction per chunk; when a chunk fails to commit its items are retried one by one,
+     * so a bad item only fails itself. Returns one result per item, in request order.
+     */
+    public List<BatchItemResult> saveBatch(List<CustomerDTO> dtos, boolean upsert) {
+        List<BatchItemResult> results = new ArrayList<>(dtos.size());
+        List<Integer> pending = new ArrayList<>(dtos.size());
+        NicSet seen = new NicSet();
+        for (int i = 0; i < dtos.size(); i++) {
+            CustomerDTO dto = dtos.get(i);
+            BatchItemResult result = new BatchItemResult(i, dto == null ? null : dto.nic);
+            results.add(result);
+            if (dto == null || dto.name == null || dto.dateOfBirth == null || dto.nic == null) {
+                result.set(BatchItemResult.Status.INVALID, null, "Name, date of birth and NIC are required");
+            } else if (!seen.add(dto.nic)) {
+                result.set(BatchItemResult.Status.DUPLICATE, null, "NIC appears earlier in the batch");
             } else {
-                customer.getAddresses().clear();
+                pending.add(i);
             }
+        }
 
-            for (AddressDTO a : dto.addresses) {
-                Address addr = new Address();
-                addr.setAddressLine1(a.addressLine1);
-                addr.setAddressLine2(a.addressLine2);
-                City city = cityRepo.findById(a.cityId)
-                        .orElseThrow(() -> new RuntimeException("City not found with ID: " + a.cityId));
-                Country country = countryRepo.findById(a.countryId)
-                        .orElseThrow(() -> new RuntimeException("Country not found with ID: " + a.countryId));
-                addr.setCity(city);
-                addr.setCountry(country);
-                addr.setCustomer(customer);
-                customer.getAddresses().add(addr);
+        for (int from = 0; from < pending.size(); from += batchChunkSize) {
+            List<Integer> chunk = pending.subList(from, Math.min(from + batchChunkSize, pending.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeChunk(dtos, chunk, results, upsert));
+            } catch (RuntimeException chunkError) {
+                for (Integer index : chunk) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status ->
+                                writeChunk(dtos, Collections.singletonList(index), results, upsert));
+                    } catch (RuntimeException itemError) {
+                        results.get(index).set(BatchItemResult.Status.INVALID, null, rootMessage(itemError));
+                    }
+                }
             }
         }
+        return results;
     }
 
-    @Transactional
-    public void bulkUpload(MultipartFile file) {
-        try (InputStream is = file.getInputStream(); Workbook workbook = new XSSFWorkbook(is)) {
-            Sheet sheet = workbook.getSheetAt(0);
-            List<Customer> customers = new ArrayList<>();
-
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
-
-                String name = getCellValue(row.getCell(0));
-                String dobStr = getCellValue(row.getCell(1));
-                String nic = getCellValue(row.getCell(2));
-                String addr1 = getCellValue(row.getCell(3));
-                String addr2 = getCellValue(row.getCell(4));
-                String cityIdStr = getCellValue(row.getCell(5));
-                String countryIdStr = getCellValue(row.getCell(6));
-                String mobileNumbers = getCellValue(row.getCell(7));
-
-                if (name == null || nic == null || dobStr == null) continue;
-                if (customerRepo.existsByNic(nic)) continue;
-
-                Customer customer = new Customer();
-                customer.setName(name);
-                customer.setNic(nic);
-                customer.setDateOfBirth(parseDate(dobStr));
-
-                List<String> mobileList = Arrays.stream(mobileNumbers.split(","))
-                        .map(String::trim)
-                        .filter(s -> !s.isEmpty())
-                        .collect(Collectors.toList());
-                customer.setMobileNumbers(mobileList);
-
-                Address address = new Address();
-                address.setAddressLine1(addr1);
-                address.setAddressLine2(addr2);
-                address.setCity(cityRepo.findById(Long.parseLong(cityIdStr)).orElse(null));
-                address.setCountry(countryRepo.findById(Long.parseLong(countryIdStr)).orElse(null));
-                address.setCustomer(customer);
-
-                customer.setAddresses(Collections.singletonList(address));
-                customers.add(customer);
-
-                if (customers.size() % 500 == 0) {
-                    customerRepo.saveAll(customers);
-                    customers.clear();
+    // One round of lookups for the whole chunk, then a single batched flush.
+    private void writeChunk(List<CustomerDTO> dtos, List<Integer> chunk, List<BatchItemResult> results, boolean upsert) {
+        Set<String> nics = new HashSet<>();
+        Set<Long> cityIds = new HashSet<>();
+        Set<Long> countryIds = new HashSet<>();
+        for (Integer index : chunk) {
+            CustomerDTO dto = dtos.get(index);
+            nics.add(dto.nic);
+            if (dto.addresses != null) {
+                for (AddressDTO a : dto.addresses) {
+                    cityIds.add(a.cityId);
+                    countryIds.add(a.countryId);
                 }
             }
+        }
 
-            if (!customers.isEmpty()) {
-                customerRepo.saveAll(customers);
-            }
+        Map<String, Customer> existing = new HashMap<>();
+        for (Customer customer : customerRepo.findByNicIn(nics)) {
+            existing.put(customer.getNic().toUpperCase(Locale.ROOT), customer);
+        }
+        ReferenceDataResolver references = new ReferenceDataResolver(cityRepo, countryRepo);
+        references.preload(cityIds, countryIds);
 
-        } catch (Exception e) {
-            throw new RuntimeException("Error processing Excel file: " + e.getMessage(), e);
+        Map<Integer, Customer> saved = new LinkedHashMap<>();
+        for (Integer index : chunk) {
+            CustomerDTO dto = dtos.get(index);
+            BatchItemResult result = results.get(index);
+            Customer customer = existing.get(dto.nic.toUpperCase(Locale.ROOT));
+            if (customer != null && !upsert) {
+                result.set(BatchItemResult.Status.DUPLICATE, customer.getId(), "NIC already exists");
+                continue;
+            }
+            boolean created = customer == null;
+            try {
+                if (created) customer = new Customer();
+                populateCustomer(customer, dto, references);
+            } catch (RuntimeException e) {
+                result.set(BatchItemResult.Status.INVALID, null, e.getMessage());
+                continue;
+            }
+            result.set(created ? BatchItemResult.Status.CREATED : BatchItemResult.Status.UPDATED, null, null);
+            saved.put(index, customer);
         }
+
+        customerRepo.saveAll(saved.values());
+        entityManager.flush();
+        saved.forEach((index, customer) -> results.get(index).id = customer.getId());
+        entityManager.clear();
+    }
+
+    private static String rootMessage(Throwable e) {
+        while (e.getCause() != null && e.getCause() != e) e = e.getCause();
+        return e.getMessage();
     }
 
-    private String getCellValue(Cell cell) {
-        if (cell == null) return null;
+    /**
+     * Applies {@code dto} to {@code customer} as a diff. Fields that already hold the incoming
+     * value are not touched. Addresses equal to an incoming one are kept, changed ones are
+     * updated in place, and only the surplus is inserted or deleted. Returns whether
+     * anything changed.
+     */
+    private boolean populateCustomer(Customer customer, CustomerDTO dto, ReferenceDataResolver references) {
+        // Resolve everything that can fail before touching the entity, so a rejected DTO
+        // leaves an already managed customer unchanged.
+        boolean parentChanged = dto.parentCustomerId != null
+                && !dto.parentCustomerId.equals(customer.getParentCustomerId());
+        Customer parent = null;
+        if (parentChanged) {
+            if (customer.getId() != null && createsCycle(customer.getId(), dto.parentCustomerId)) {
+                throw new RuntimeException("Customer " + customer.getId()
+                        + " cannot have its own descendant " + dto.parentCustomerId + " as parent");
+            }
+            parent = customerRepo.findById(dto.parentCustomerId).orElse(null);
+        }
+
+        List<String> mobileNumbers = normalizeMobileNumbers(dto.mobileNumbers);
+
+        List<Address> existing = customer.getAddresses() != null ? customer.getAddresses() : new ArrayList<>();
+        List<Address> unmatched = new ArrayList<>(existing);
+        List<AddressDTO> incoming = new ArrayList<>();
+        if (dto.addresses != null) {
+            for (AddressDTO a : dto.addresses) {
+                Address same = unmatched.stream().filter(e -> sameAddress(e, a)).findFirst().orElse(null);
+                if (same != null) unmatched.remove(same);
+                else incoming.add(a);
+            }
+            // the current addresses' reference data is already loaded; only new ids are queried
+            for (Address e : existing) {
+                references.remember(e.getCity());
+                references.remember(e.getCountry());
+            }
+            references.preload(
+                    incoming.stream().map(a -> a.cityId).collect(Collectors.toSet()),
+                    incoming.stream().map(a -> a.countryId).collect(Collectors.toSet()));
+            for (AddressDTO a : incoming) {
+                if (references.city(a.cityId) == null) throw new RuntimeException("City not found with ID: " + a.cityId);
+                if (references.country(a.countryId) == null) throw new RuntimeException("Country not found with ID: " + a.countryId);
+            }
+        }
+
+        boolean changed = false;
+        if (!Objects.equals(customer.getName(), dto.name)) {
+            customer.setName(dto.name);
+            changed = true;
+        }
+        if (!Objects.equals(customer.getDateOfBirth(), dto.dateOfBirth)) {
+            customer.setDateOfBirth(dto.dateOfBirth);
+            changed = true;
+        }
+        if (!Objects.equals(customer.getNic(), dto.nic)) {
+            customer.setNic(dto.nic);
+            changed = true;
+        }
+        changed |= updateMobileNumbers(customer, mobileNumbers);
+        if (parentChanged) {
+            customer.setParentCustomer(parent);
+            changed = true;
+        }
 
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue().trim();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getLocalDateTimeCellValue().toLocalDate().toString();
-                } else {
-                    double numericValue = cell.getNumericCellValue();
-                    long longVal = (long) numericValue;
-                    return String.valueOf(longVal);
+        if (dto.addresses != null && (!incoming.isEmpty() || !unmatched.isEmpty())) {
+            if (!changed && entityManager.contains(customer)) {
+                // only address rows are written, which would leave the customer's version as it was
+                // and the customer out of the search index's change listener
+                entityManager.lock(customer, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+                searchService.reindexAfterCommit(customer);
+            }
+            if (customer.getAddresses() == null) customer.setAddresses(existing);
+            // reuse rows that no longer match for the changed addresses, then add or drop the rest
+            for (int i = 0; i < incoming.size(); i++) {
+                AddressDTO a = incoming.get(i);
+                Address addr = i < unmatched.size() ? unmatched.get(i) : new Address();
+                addr.setAddressLine1(a.addressLine1);
+                addr.setAddressLine2(a.addressLine2);
+                addr.setCity(references.city(a.cityId));
+                addr.setCountry(references.country(a.countryId));
+                if (i >= unmatched.size()) {
+                    addr.setCustomer(customer);
+                    existing.add(addr);
                 }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            case BLANK:
-            case _NONE:
-            case ERROR:
-            default:
-                return null;
-        }
-    }
-
-    private LocalDate parseDate(String dateStr) {
-        List<DateTimeFormatter> formatters = Arrays.asList(
-                DateTimeFormatter.ofPattern("M/d/yyyy"),
-                DateTimeFormatter.ofPattern("MM/dd/yyyy"),
-                DateTimeFormatter.ISO_LOCAL_DATE
-        );
-
-        for (DateTimeFormatter formatter : formatters) {
-            try {
-                return LocalDate.parse(dateStr, formatter);
-            } catch (DateTimeParseException ignored) {}
+            }
+            for (int i = incoming.size(); i < unmatched.size(); i++) {
+                existing.remove(unmatched.get(i));
+            }
+            changed = true;
         }
-        throw new RuntimeException("Invalid date format: " + dateStr);
+        return changed;
+    }
+
+    private static boolean sameAddress(Address address, AddressDTO dto) {
+        return Objects.equals(address.getAddressLine1(), dto.addressLine1)
+                && Objects.equals(address.getAddressLine2(), dto.addressLine2)
+                && address.getCity() != null && address.getCity().getId().equals(dto.cityId)
+                && address.getCountry() != null && address.getCountry().getId().equals(dto.countryId);
+    }
+
+    private List<String> normalizeMobileNumbers(List<String> numbers) {
+        if (numbers == null) return null;
+        List<String> normalized = new ArrayList<>(numbers.size());
+        for (String number : numbers) normalized.add(mobileNormalizer.normalize(number));
+        return normalized;
+    }
+
+    // Edits the persistent set in place so Hibernate only writes the numbers that changed.
+    private static boolean updateMobileNumbers(Customer customer, List<String> incoming) {
+        Set<String> current = customer.getMobileNumbers();
+        if (current == null || incoming == null) {
+            if (current == null && incoming == null) return false;
+            customer.setMobileNumbers(incoming);
+            return true;
+        }
+
+        Set<String> wanted = new LinkedHashSet<>(incoming);
+        if (current.equals(wanted)) return false;
+        current.retainAll(wanted);
+        current.addAll(wanted);
+        return true;
+    }
+
+    // true when customerId is the proposed parent itself or one of its ancestors
+    private boolean createsCycle(Long customerId, Long parentId) {
+        for (Number ancestor : customerRepo.findAncestorIds(parentId, MAX_ANCESTRY_CHECK)) {
+            if (ancestor.longValue() == customerId) return true;
+        }
+        return false;
+    }
+
+    public BulkUploadResult bulkUpload(MultipartFile file) {
+        Path tempFile = null;
+        try {
+            // The event reader needs random access to the zip, so spool the upload to disk
+            // instead of letting POI buffer every part of the package in memory.
+            tempFile = Files.createTempFile("customer-upload-", ".xlsx");
+            file.transferTo(tempFile);
+            return importPipeline.importFile(tempFile.toFile(), new BulkUploadResult(), 0, null);
+        } catch (IOException e) {
+            throw new RuntimeException("Error processing Excel file: " + e.getMessage(), e);
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * Records {@code cms.customer.write} for the current transaction, from here until it
+     * commits or rolls back, so the flush at commit is part of the latency.
+     */
+    private void timeTransaction(String operation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                sample.stop(Timer.builder("cms.customer.write")
+                        .description("Single-customer writes, including their commit")
+                        .tag("operation", operation)
+                        .tag("outcome", status == STATUS_COMMITTED ? "committed" : "rolled_back")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
+        });
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {}
     }
 }
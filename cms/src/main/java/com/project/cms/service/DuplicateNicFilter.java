@@ -0,0 +1,59 @@
+package com.project.cms.service;
+
+import com.project.cms.dto.BulkUploadResult;
+import com.project.cms.repository.CustomerRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Drops import rows whose NIC already exists, either earlier in the same file or in the
+ * database. NICs seen so far are kept in a {@link NicSet} so repeats inside the file are caught
+ * before the unique constraint fails the transaction; the database check costs one {@code IN}
+ * query per chunk.
+ */
+public class DuplicateNicFilter {
+
+    private final CustomerRepository customerRepo;
+    private final int nicColumn;
+    private final NicSet seen = new NicSet();
+
+    public DuplicateNicFilter(CustomerRepository customerRepo, int nicColumn) {
+        this.customerRepo = customerRepo;
+        this.nicColumn = nicColumn;
+    }
+
+    /** Keeps the first row for each NIC. Not thread-safe; chunks must be passed in file order. */
+    public List<Object[]> retainFirstOccurrences(List<Object[]> rows, BulkUploadResult result) {
+        List<Object[]> accepted = new ArrayList<>(rows.size());
+        for (Object[] cells : rows) {
+            if (seen.add(UploadCells.text(cells[nicColumn]))) {
+                accepted.add(cells);
+            } else {
+                result.skippedDuplicateNic++;
+            }
+        }
+        return accepted;
+    }
+
+    /** Keeps the rows whose NIC is not in the database yet. Safe to call from several threads. */
+    public List<Object[]> retainNotInDatabase(List<Object[]> rows, BulkUploadResult result) {
+        Set<String> nics = rows.stream().map(cells -> UploadCells.text(cells[nicColumn])).collect(Collectors.toSet());
+        if (nics.isEmpty()) return rows;
+
+        NicSet existing = new NicSet();
+        customerRepo.findExistingNics(nics).forEach(existing::add);
+
+        List<Object[]> accepted = new ArrayList<>(rows.size());
+        for (Object[] cells : rows) {
+            if (existing.contains(UploadCells.text(cells[nicColumn]))) {
+                result.skippedExistingNic++;
+            } else {
+                accepted.add(cells);
+            }
+        }
+        return accepted;
+    }
+}
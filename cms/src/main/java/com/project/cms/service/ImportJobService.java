@@ -0,0 +1,160 @@
+package com.project.cms.service;
+
+import com.project.cms.entity.ImportJob;
+import com.project.cms.repository.ImportJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs bulk uploads as background jobs. The upload is spooled to a work directory and the
+ * job row tracks progress after every committed chunk, so a node that restarts picks its
+ * unfinished jobs up again from the last committed row.
+ */
+@Service
+public class ImportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportJobService.class);
+
+    private final ImportJobRepository jobRepo;
+    private final CustomerImportPipeline importPipeline;
+    private final TaskExecutor importExecutor;
+    private final Path workDir;
+    private final String owner;
+
+    public ImportJobService(ImportJobRepository jobRepo, CustomerImportPipeline importPipeline,
+                            @Qualifier("importExecutor") TaskExecutor importExecutor,
+                            @Value("${cms.import.work-dir:${java.io.tmpdir}/cms-imports}") String workDir,
+                            @Value("${cms.import.node-id:}") String nodeId) throws IOException {
+        this.jobRepo = jobRepo;
+        this.importPipeline = importPipeline;
+        this.importExecutor = importExecutor;
+        this.workDir = Files.createDirectories(Paths.get(workDir));
+        this.owner = nodeId.isEmpty() ? hostName() : nodeId;
+    }
+
+    public ImportJob submit(MultipartFile file) throws IOException {
+        Path spooled = Files.createTempFile(workDir, "import-", ".xlsx");
+        file.transferTo(spooled);
+        try {
+            return submit(spooled, file.getOriginalFilename());
+        } catch (RejectedExecutionException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+    }
+
+    /**
+     * Imports a file already in the work directory on this node; the job deletes it when it
+     * finishes. If the queue is full the job is recorded as failed but the file is left for
+     * the caller, so a chunked upload can be submitted again without sending it again.
+     */
+    public ImportJob submit(Path file, String fileName) {
+        ImportJob job = new ImportJob();
+        job.setFileName(fileName);
+        job.setFilePath(file.toString());
+        job.setOwner(owner);
+        job.setStatus(ImportJob.Status.QUEUED);
+        job.setCreatedAt(LocalDateTime.now());
+        job = jobRepo.save(job);
+
+        try {
+            schedule(job.getId());
+        } catch (RejectedExecutionException e) {
+            job.setStatus(ImportJob.Status.FAILED);
+            job.setError("Import queue is full");
+            job.setFinishedAt(LocalDateTime.now());
+            jobRepo.save(job);
+            throw e;
+        }
+        return job;
+    }
+
+    public ImportJob getJob(Long id) {
+        return jobRepo.findById(id).orElse(null);
+    }
+
+    // where uploads are spooled, and the node id jobs are owned by
+    public Path getWorkDir() {
+        return workDir;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        for (ImportJob job : jobRepo.findByOwnerAndStatusIn(owner,
+                Arrays.asList(ImportJob.Status.QUEUED, ImportJob.Status.RUNNING))) {
+            if (job.getFilePath() != null && new File(job.getFilePath()).exists()) {
+                log.info("Resuming import job {} after row {}", job.getId(), job.getLastRowIndex());
+                schedule(job.getId());
+            } else {
+                finish(job, ImportJob.Status.FAILED, "Upload file was lost before the import finished");
+            }
+        }
+    }
+
+    private void schedule(Long jobId) {
+        importExecutor.execute(() -> run(jobId));
+    }
+
+    private void run(Long jobId) {
+        ImportJob job = jobRepo.findById(jobId).orElse(null);
+        if (job == null) return;
+
+        job.setStatus(ImportJob.Status.RUNNING);
+        if (job.getStartedAt() == null) job.setStartedAt(LocalDateTime.now());
+        jobRepo.save(job);
+
+        try {
+            importPipeline.importFile(new File(job.getFilePath()), job.toResult(), job.getLastRowIndex(),
+                    (totals, lastRowIndex) -> {
+                        job.applyProgress(totals, lastRowIndex);
+                        jobRepo.save(job);
+                    });
+            finish(job, ImportJob.Status.COMPLETED, null);
+        } catch (RuntimeException e) {
+            log.error("Import job {} failed", jobId, e);
+            finish(job, ImportJob.Status.FAILED, e.getMessage());
+        }
+    }
+
+    private void finish(ImportJob job, ImportJob.Status status, String error) {
+        job.setStatus(status);
+        job.setError(error);
+        job.setFinishedAt(LocalDateTime.now());
+        jobRepo.save(job);
+        try {
+            Files.deleteIfExists(Paths.get(job.getFilePath()));
+        } catch (IOException e) {
+            log.warn("Could not delete {}", job.getFilePath(), e);
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+}
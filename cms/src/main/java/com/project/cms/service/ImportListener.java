@@ -0,0 +1,13 @@
+package com.project.cms.service;
+
+import com.project.cms.dto.BulkUploadResult;
+
+public interface ImportListener {
+    /**
+     * Called after each chunk of an import has been committed.
+     *
+     * @param totals       running totals for the import
+     * @param lastRowIndex sheet row index of the last row in the committed chunk
+     */
+    void chunkCommitted(BulkUploadResult totals, int lastRowIndex);
+}
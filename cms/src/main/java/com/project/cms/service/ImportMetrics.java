@@ -0,0 +1,81 @@
+package com.project.cms.service;
+
+import com.project.cms.dto.BulkUploadResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of {@link CustomerImportPipeline}: the time each chunk spends in each stage, as
+ * {@code cms.import.stage}, the SQL statements each chunk executes and their time, as
+ * {@code cms.import.chunk.sql.statements} and {@code cms.import.chunk.sql.time}, and rows by
+ * outcome, as {@code cms.import.rows}, whose rate is the import's rows per second.
+ */
+class ImportMetrics {
+
+    final Timer parse;
+    final Timer nicCheck;
+    final Timer referenceLookup;
+    final Timer map;
+    final Timer write;
+
+    private final DistributionSummary chunkSqlStatements;
+    private final Timer chunkSqlTime;
+
+    private final Counter inserted;
+    private final Counter failed;
+    private final Counter skippedMissingFields;
+    private final Counter skippedExistingNic;
+    private final Counter skippedDuplicateNic;
+
+    ImportMetrics(MeterRegistry registry) {
+        parse = stage(registry, "parse");
+        nicCheck = stage(registry, "nic_check");
+        referenceLookup = stage(registry, "reference_lookup");
+        map = stage(registry, "map");
+        write = stage(registry, "write");
+
+        chunkSqlStatements = DistributionSummary.builder("cms.import.chunk.sql.statements")
+                .description("SQL statements executed per chunk of an import")
+                .register(registry);
+        chunkSqlTime = Timer.builder("cms.import.chunk.sql.time")
+                .description("Time spent executing SQL per chunk of an import")
+                .register(registry);
+
+        inserted = rows(registry, "inserted");
+        failed = rows(registry, "failed");
+        skippedMissingFields = rows(registry, "skipped_missing_fields");
+        skippedExistingNic = rows(registry, "skipped_existing_nic");
+        skippedDuplicateNic = rows(registry, "skipped_duplicate_nic");
+    }
+
+    void countRows(BulkUploadResult chunk) {
+        inserted.increment(chunk.inserted);
+        failed.increment(chunk.failed);
+        skippedMissingFields.increment(chunk.skippedMissingFields);
+        skippedExistingNic.increment(chunk.skippedExistingNic);
+        skippedDuplicateNic.increment(chunk.skippedDuplicateNic);
+    }
+
+    void recordSql(long statements, long nanos) {
+        chunkSqlStatements.record(statements);
+        chunkSqlTime.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer stage(MeterRegistry registry, String stage) {
+        return Timer.builder("cms.import.stage")
+                .description("Time a chunk of an import spends in one stage")
+                .tag("stage", stage)
+                .register(registry);
+    }
+
+    private static Counter rows(MeterRegistry registry, String outcome) {
+        return Counter.builder("cms.import.rows")
+                .description("Rows of bulk uploads by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
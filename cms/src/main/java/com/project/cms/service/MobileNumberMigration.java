@@ -0,0 +1,228 @@
+package com.project.cms.service;
+
+import com.project.cms.dto.MobileMigrationStatus;
+import com.project.cms.entity.Customer;
+import com.project.cms.repository.CustomerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Rewrites the mobile numbers stored before they were normalized on write, walking the
+ * customers in id order, {@code cms.mobile.migration-batch-size} per transaction. Numbers go
+ * through the entity, so each changed customer gets a new version and is reindexed for
+ * search like any other update; a customer edited while its batch runs fails the batch's
+ * optimistic check and the batch is read again. Numbers that cannot be normalized are left
+ * as they are and counted. Running it again only rewrites what is still unnormalized.
+ * <p>
+ * Before that, rows repeated in a table created for the old list mapping, which had no
+ * primary key, are collapsed to one and the {@code uk_customer_mobile_number} unique key is
+ * added if the table has nothing equivalent yet.
+ */
+@Service
+public class MobileNumberMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(MobileNumberMigration.class);
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final String TABLE = "customer_mobile_numbers";
+    private static final Set<String> KEY_COLUMNS = new HashSet<>(Arrays.asList("customer_id", "mobile_numbers"));
+
+    private final CustomerRepository customerRepo;
+    private final MobileNumberNormalizer normalizer;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbc;
+    private final int batchSize;
+    private final ExecutorService background;
+
+    private MobileMigrationStatus status = new MobileMigrationStatus();
+
+    public MobileNumberMigration(CustomerRepository customerRepo, MobileNumberNormalizer normalizer,
+                                 TransactionTemplate transactionTemplate, JdbcTemplate jdbc,
+                                 @Value("${cms.mobile.migration-batch-size:500}") int batchSize) {
+        this.customerRepo = customerRepo;
+        this.normalizer = normalizer;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbc = jdbc;
+        this.batchSize = Math.max(batchSize, 1);
+        this.background = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mobile-migration");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Starts the migration in the background; returns null when one is already running. */
+    public synchronized MobileMigrationStatus start() {
+        if (status.running) return null;
+        MobileMigrationStatus started = new MobileMigrationStatus();
+        started.running = true;
+        started.startedAt = LocalDateTime.now();
+        status = started;
+        background.execute(() -> run(started));
+        return getStatus();
+    }
+
+    public synchronized MobileMigrationStatus getStatus() {
+        MobileMigrationStatus copy = new MobileMigrationStatus();
+        copy.running = status.running;
+        copy.customersScanned = status.customersScanned;
+        copy.customersUpdated = status.customersUpdated;
+        copy.invalidNumbers = status.invalidNumbers;
+        copy.duplicatesRemoved = status.duplicatesRemoved;
+        copy.lastCustomerId = status.lastCustomerId;
+        copy.startedAt = status.startedAt;
+        copy.finishedAt = status.finishedAt;
+        copy.error = status.error;
+        return copy;
+    }
+
+    @PreDestroy
+    public void close() {
+        background.shutdownNow();
+    }
+
+    private void run(MobileMigrationStatus progress) {
+        String error = null;
+        try {
+            // first, as Hibernate expects each number it deletes to match a single row
+            long duplicates = removeDuplicateRows();
+            synchronized (this) {
+                progress.duplicatesRemoved = duplicates;
+            }
+            addUniqueKey();
+
+            long after = 0;
+            for (MobileMigrationStatus batch = migrateBatch(after); batch != null; batch = migrateBatch(after)) {
+                after = batch.lastCustomerId;
+                synchronized (this) {
+                    progress.customersScanned += batch.customersScanned;
+                    progress.customersUpdated += batch.customersUpdated;
+                    progress.invalidNumbers += batch.invalidNumbers;
+                    progress.lastCustomerId = batch.lastCustomerId;
+                }
+                if (Thread.currentThread().isInterrupted()) throw new IllegalStateException("Migration interrupted");
+            }
+            log.info("Normalized the mobile numbers of {} of {} customers; {} numbers could not be normalized",
+                    progress.customersUpdated, progress.customersScanned, progress.invalidNumbers);
+        } catch (RuntimeException e) {
+            log.error("Mobile number migration failed after customer {}", progress.lastCustomerId, e);
+            error = e.getMessage();
+        }
+        synchronized (this) {
+            progress.error = error;
+            progress.finishedAt = LocalDateTime.now();
+            progress.running = false;
+        }
+    }
+
+    // Counts for the batch after the given id, or null when no customers are left
+    private MobileMigrationStatus migrateBatch(long after) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(tx -> {
+                    List<Long> ids = customerRepo.findIdsAfter(after, PageRequest.of(0, batchSize));
+                    if (ids.isEmpty()) return null;
+
+                    MobileMigrationStatus batch = new MobileMigrationStatus();
+                    batch.customersScanned = ids.size();
+                    batch.lastCustomerId = ids.get(ids.size() - 1);
+                    for (Customer customer : customerRepo.findAllById(ids)) {
+                        Set<String> current = customer.getMobileNumbers();
+                        if (current == null || current.isEmpty()) continue;
+                        Set<String> normalized = new LinkedHashSet<>();
+                        for (String number : current) {
+                            try {
+                                normalized.add(normalizer.normalize(number));
+                            } catch (IllegalArgumentException e) {
+                                normalized.add(number);
+                                batch.invalidNumbers++;
+                            }
+                        }
+                        if (!normalized.equals(current)) {
+                            // in place, so only the rewritten numbers are deleted and inserted
+                            current.retainAll(normalized);
+                            current.addAll(normalized);
+                            batch.customersUpdated++;
+                        }
+                    }
+                    return batch;
+                });
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == MAX_ATTEMPTS) throw e;
+                log.debug("Customers after {} changed during migration, reading them again", after);
+            }
+        }
+    }
+
+    // Collapses each repeated (customer, number) pair to a single row; returns the rows removed
+    private long removeDuplicateRows() {
+        return transactionTemplate.execute(tx -> {
+            List<Object[]> repeated = jdbc.query("select customer_id, mobile_numbers, count(*) from " + TABLE
+                            + " group by customer_id, mobile_numbers having count(*) > 1",
+                    (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getLong(3)});
+            if (repeated.isEmpty()) return 0L;
+
+            List<Object[]> rows = new ArrayList<>(repeated.size());
+            long removed = 0;
+            for (Object[] pair : repeated) {
+                rows.add(new Object[]{pair[0], pair[1]});
+                removed += (Long) pair[2] - 1;
+            }
+            jdbc.batchUpdate("delete from " + TABLE + " where customer_id = ? and mobile_numbers = ?", rows);
+            jdbc.batchUpdate("insert into " + TABLE + " (customer_id, mobile_numbers) values (?, ?)", rows);
+            log.info("Removed {} repeated mobile number rows", removed);
+            return removed;
+        });
+    }
+
+    private void addUniqueKey() {
+        Boolean present = jdbc.execute((ConnectionCallback<Boolean>) connection ->
+                hasUniqueKey(connection.getMetaData(), connection.getCatalog(), connection.getSchema()));
+        if (Boolean.TRUE.equals(present)) return;
+
+        jdbc.execute("alter table " + TABLE + " add constraint uk_customer_mobile_number"
+                + " unique (customer_id, mobile_numbers)");
+        log.info("Added unique key uk_customer_mobile_number to {}", TABLE);
+    }
+
+    // True if a unique index, such as the primary key of a table created for the set mapping,
+    // already covers exactly (customer_id, mobile_numbers)
+    private static boolean hasUniqueKey(DatabaseMetaData metaData, String catalog, String schema) throws SQLException {
+        String table = metaData.storesUpperCaseIdentifiers() ? TABLE.toUpperCase(Locale.ROOT) : TABLE;
+        Map<String, Set<String>> columnsByIndex = new HashMap<>();
+        try (ResultSet rs = metaData.getIndexInfo(catalog, schema, table, true, false)) {
+            while (rs.next()) {
+                String index = rs.getString("INDEX_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if (index == null || column == null) continue;
+                columnsByIndex.computeIfAbsent(index, name -> new HashSet<>()).add(column.toLowerCase(Locale.ROOT));
+            }
+        }
+        return columnsByIndex.containsValue(KEY_COLUMNS);
+    }
+}
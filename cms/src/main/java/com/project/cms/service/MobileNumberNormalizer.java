@@ -0,0 +1,56 @@
+package com.project.cms.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Brings mobile numbers to the one form they are stored and looked up in: E.164, a {@code +}
+ * and the country code followed by the subscriber number, digits only. Spaces, dashes, dots,
+ * slashes and brackets are dropped; {@code 00} is read as the international prefix, a single
+ * leading {@code 0} as the national trunk prefix of {@code cms.mobile.default-country-code}, and
+ * bare digits as a national number unless they already start with that country code.
+ */
+@Component
+public class MobileNumberNormalizer {
+
+    // E.164 allows at most 15 digits; nothing shorter than 8 is a reachable mobile
+    private static final int MIN_DIGITS = 8;
+    private static final int MAX_DIGITS = 15;
+
+    private final String countryCode;
+
+    public MobileNumberNormalizer(@Value("${cms.mobile.default-country-code:94}") String countryCode) {
+        this.countryCode = countryCode;
+    }
+
+    /** @throws IllegalArgumentException when {@code raw} cannot be a phone number */
+    public String normalize(String raw) {
+        if (raw == null) throw new IllegalArgumentException("Mobile number is required");
+        StringBuilder digits = new StringBuilder(raw.length() + countryCode.length());
+        boolean international = false;
+        for (int i = 0; i < raw.length(); i++) {
+            char ch = raw.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                digits.append(ch);
+            } else if (ch == '+' && digits.length() == 0 && !international) {
+                international = true;
+            } else if (!Character.isWhitespace(ch) && "-./()".indexOf(ch) < 0) {
+                throw new IllegalArgumentException("Invalid mobile number: " + raw);
+            }
+        }
+
+        if (!international) {
+            if (digits.length() > 2 && digits.charAt(0) == '0' && digits.charAt(1) == '0') {
+                digits.delete(0, 2);
+            } else if (digits.length() > 0 && digits.charAt(0) == '0') {
+                digits.replace(0, 1, countryCode);
+            } else if (digits.indexOf(countryCode) != 0) {
+                digits.insert(0, countryCode);
+            }
+        }
+        if (digits.length() < MIN_DIGITS || digits.length() > MAX_DIGITS || digits.charAt(0) == '0') {
+            throw new IllegalArgumentException("Invalid mobile number: " + raw);
+        }
+        return digits.insert(0, '+').toString();
+    }
+}
@@ -0,0 +1,88 @@
+package com.project.cms.service;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Set of NICs sized for whole-file imports. NICs in the old (9 digits + V/X) and new
+ * (12 digits) formats are packed into a long and kept in an open-addressing table, a
+ * fraction of the footprint of a {@code HashSet<String>}; anything else falls back to a
+ * string set. Matching ignores case, like the unique index on {@code customer.nic}.
+ */
+public class NicSet {
+
+    private static final long EMPTY = 0L;
+
+    private long[] table = new long[1024];
+    private int size;
+    private final Set<String> others = new HashSet<>();
+
+    /** @return true if the NIC was not already in the set */
+    public boolean add(String nic) {
+        long key = encode(nic);
+        if (key == EMPTY) return others.add(nic.toUpperCase(Locale.ROOT));
+
+        if ((size + 1) * 2 > table.length) resize();
+        int slot = slot(table, key);
+        if (table[slot] == key) return false;
+        table[slot] = key;
+        size++;
+        return true;
+    }
+
+    public boolean contains(String nic) {
+        long key = encode(nic);
+        if (key == EMPTY) return others.contains(nic.toUpperCase(Locale.ROOT));
+        return table[slot(table, key)] == key;
+    }
+
+    public int size() {
+        return size + others.size();
+    }
+
+    private void resize() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        for (long key : old) {
+            if (key != EMPTY) table[slot(table, key)] = key;
+        }
+    }
+
+    // Linear probing; returns the slot holding the key or the empty slot where it belongs.
+    private static int slot(long[] table, long key) {
+        int mask = table.length - 1;
+        int i = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+        while (table[i] != EMPTY && table[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    // Low two bits tag the format (1 = V, 2 = X, 3 = 12 digits), so a packed key is never EMPTY.
+    private static long encode(String nic) {
+        int length = nic.length();
+        int tag;
+        int digits;
+        if (length == 12) {
+            tag = 3;
+            digits = 12;
+        } else if (length == 10) {
+            char suffix = Character.toUpperCase(nic.charAt(9));
+            if (suffix == 'V') tag = 1;
+            else if (suffix == 'X') tag = 2;
+            else return EMPTY;
+            digits = 9;
+        } else {
+            return EMPTY;
+        }
+
+        long value = 0;
+        for (int i = 0; i < digits; i++) {
+            char ch = nic.charAt(i);
+            if (ch < '0' || ch > '9') return EMPTY;
+            value = value * 10 + (ch - '0');
+        }
+        return (value << 2) | tag;
+    }
+}
@@ -0,0 +1,145 @@
+package com.project.cms.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.cms.entity.City;
+import com.project.cms.entity.Country;
+import com.project.cms.repository.CityRepository;
+import com.project.cms.repository.CountryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the city and country lists in memory together with their serialized JSON and a
+ * strong ETag, so the reference-data endpoints never touch the database on a hit. The
+ * snapshot is reloaded after {@code cms.reference.ttl} or as soon as a write to either
+ * table commits (see {@link ReferenceDataListener}).
+ */
+@Service
+public class ReferenceDataCache {
+
+    /** Serialized list plus the ETag clients send back in {@code If-None-Match}. */
+    public static class Representation {
+        public final byte[] json;
+        public final String etag;
+
+        public Representation(byte[] json) {
+            this.json = json;
+            this.etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+        }
+    }
+
+    private static class Snapshot {
+        final List<City> cities;
+        final List<Country> countries;
+        final Representation citiesJson;
+        final Representation countriesJson;
+        final CityIndex cityIndex;
+        final Set<Long> countryIds = new HashSet<>();
+        final long loadedAt;
+
+        Snapshot(List<City> cities, List<Country> countries, Representation citiesJson,
+                 Representation countriesJson, long loadedAt) {
+            this.cities = cities;
+            this.countries = countries;
+            this.citiesJson = citiesJson;
+            this.countriesJson = countriesJson;
+            this.cityIndex = new CityIndex(cities);
+            for (Country country : countries) countryIds.add(country.getId());
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final CityRepository cityRepo;
+    private final CountryRepository countryRepo;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final long ttlNanos;
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public ReferenceDataCache(CityRepository cityRepo, CountryRepository countryRepo,
+                              TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                              @Value("${cms.reference.ttl:10m}") Duration ttl) {
+        this.cityRepo = cityRepo;
+        this.countryRepo = countryRepo;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public List<City> getCities() {
+        return current().cities;
+    }
+
+    public List<Country> getCountries() {
+        return current().countries;
+    }
+
+    /** Cities by country and by name prefix, rebuilt with every snapshot. */
+    public CityIndex getCityIndex() {
+        return current().cityIndex;
+    }
+
+    public boolean countryExists(Long id) {
+        return current().countryIds.contains(id);
+    }
+
+    public Representation getCitiesJson() {
+        return current().citiesJson;
+    }
+
+    public Representation getCountriesJson() {
+        return current().countriesJson;
+    }
+
+    /** Drops the snapshot; the next read reloads both lists. */
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && System.nanoTime() - current.loadedAt < ttlNanos) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || System.nanoTime() - current.loadedAt >= ttlNanos) {
+                long loading = generation.get();
+                current = load();
+                // a write that committed while we were reading may not be in this snapshot
+                if (generation.get() == loading) snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private Snapshot load() {
+        long loadedAt = System.nanoTime();
+        return readOnlyTransaction.execute(status -> {
+            List<Country> countries = Collections.unmodifiableList(countryRepo.findAll());
+            List<City> cities = Collections.unmodifiableList(cityRepo.findAll());
+            try {
+                return new Snapshot(cities, countries,
+                        new Representation(objectMapper.writeValueAsBytes(cities)),
+                        new Representation(objectMapper.writeValueAsBytes(countries)),
+                        loadedAt);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Unable to serialize reference data", e);
+            }
+        });
+    }
+}
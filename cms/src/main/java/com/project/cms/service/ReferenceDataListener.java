@@ -0,0 +1,45 @@
+package com.project.cms.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA listener on {@code City} and {@code Country} that invalidates the
+ * {@link ReferenceDataCache} once a write commits. Hibernate creates it through Spring,
+ * before the cache exists, so the cache is looked up lazily.
+ */
+public class ReferenceDataListener {
+
+    private final ObjectProvider<ReferenceDataCache> cache;
+
+    public ReferenceDataListener(ObjectProvider<ReferenceDataCache> cache) {
+        this.cache = cache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // invalidating before commit would let a concurrent read cache the old rows again
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    private void invalidate() {
+        ReferenceDataCache referenceData = cache.getIfAvailable();
+        if (referenceData != null) referenceData.invalidate();
+    }
+}
@@ -0,0 +1,79 @@
+package com.project.cms.service;
+
+import com.project.cms.entity.City;
+import com.project.cms.entity.Country;
+import com.project.cms.repository.CityRepository;
+import com.project.cms.repository.CountryRepository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Resolves City/Country ids for the lifetime of one import or update. Unknown ids are
+ * fetched together with a single {@code findAllById} per type and remembered, so mapping
+ * a row costs no queries once its ids have been seen. Ids that don't exist resolve to null.
+ * <p>
+ * Cached entities outlive {@code EntityManager.clear()} between import batches; a detached
+ * City or Country is still a valid target for the non-cascading address foreign keys.
+ */
+public class ReferenceDataResolver {
+
+    private final CityRepository cityRepo;
+    private final CountryRepository countryRepo;
+
+    private final Map<Long, City> cities = new HashMap<>();
+    private final Map<Long, Country> countries = new HashMap<>();
+
+    public ReferenceDataResolver(CityRepository cityRepo, CountryRepository countryRepo) {
+        this.cityRepo = cityRepo;
+        this.countryRepo = countryRepo;
+    }
+
+    public void preload(Collection<Long> cityIds, Collection<Long> countryIds) {
+        load(cityIds, cities, cityRepo::findAllById, City::getId);
+        load(countryIds, countries, countryRepo::findAllById, Country::getId);
+    }
+
+    /** Registers entities that are already loaded, such as an address's current city. */
+    public void remember(City city) {
+        if (city != null) cities.putIfAbsent(city.getId(), city);
+    }
+
+    public void remember(Country country) {
+        if (country != null) countries.putIfAbsent(country.getId(), country);
+    }
+
+    public City city(Long id) {
+        if (id == null) return null;
+        if (!cities.containsKey(id)) load(Collections.singleton(id), cities, cityRepo::findAllById, City::getId);
+        return cities.get(id);
+    }
+
+    public Country country(Long id) {
+        if (id == null) return null;
+        if (!countries.containsKey(id)) load(Collections.singleton(id), countries, countryRepo::findAllById, Country::getId);
+        return countries.get(id);
+    }
+
+    // Misses are cached as null values so a bad id in every row is only looked up once.
+    private static <T> void load(Collection<Long> ids, Map<Long, T> cache,
+                                 Function<Set<Long>, Iterable<T>> finder, Function<T, Long> idOf) {
+        Set<Long> missing = new HashSet<>();
+        for (Long id : ids) {
+            if (id != null && !cache.containsKey(id)) missing.add(id);
+        }
+        if (missing.isEmpty()) return;
+
+        for (T entity : finder.apply(missing)) {
+            cache.put(idOf.apply(entity), entity);
+        }
+        for (Long id : missing) {
+            cache.putIfAbsent(id, null);
+        }
+    }
+}
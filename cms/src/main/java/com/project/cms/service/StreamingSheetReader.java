@@ -0,0 +1,274 @@
+package com.project.cms.service;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Reads the first sheet of an .xlsx file with POI's event model, handing rows to a
+ * {@link RowHandler} one at a time. Only the current row is held in memory, so heap
+ * use does not grow with the number of rows in the sheet.
+ */
+public class StreamingSheetReader {
+
+    // days from 1899-12-30, where Excel's 1900 date system counts from, to 1970-01-01
+    private static final long EXCEL_EPOCH_OFFSET = 25569;
+    // serials from here on are past Excel's fictitious 29 February 1900
+    private static final long FIRST_SERIAL_AFTER_1900_LEAP_BUG = 61;
+    private static final double MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+
+    public interface RowHandler {
+        /**
+         * @param rowIndex zero-based row index, matching {@code Sheet.getRow(int)}
+         * @param cells    cell values for the first {@code columns} columns as
+         *                 {@link StreamingSheetReader#cellValue} gives them, null when blank
+         */
+        void handle(int rowIndex, Object[] cells);
+    }
+
+    private final int columns;
+    private IntConsumer dimensionListener;
+
+    public StreamingSheetReader(int columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Registers a callback for the sheet's declared size. It receives the zero-based index of
+     * the last row from the {@code <dimension>} element, if the writer included one.
+     */
+    public StreamingSheetReader onDimension(IntConsumer listener) {
+        this.dimensionListener = listener;
+        return this;
+    }
+
+    public void read(File file, RowHandler handler) throws IOException {
+        OPCPackage pkg = null;
+        try {
+            // reads the zip's entries through a seekable channel on the file, in place
+            pkg = OPCPackage.open(file, PackageAccess.READ);
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) return;
+
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new SheetHandler(strings, styles, handler));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Unable to read Excel file: " + e.getMessage(), e);
+        } finally {
+            // read-only packages are released with revert(); close() would try to save
+            if (pkg != null) pkg.revert();
+        }
+    }
+
+    /**
+     * Converts one cell of raw sheet XML into its value: a trimmed {@code String} for text,
+     * booleans and the formula text of formula cells, a {@code Long} for numbers (truncated to
+     * whole numbers, as {@code CustomerService} read them from {@code Cell}s) and a
+     * {@code LocalDate} for date-formatted numbers. Whole numbers, which covers ids and date
+     * serials, are read straight from {@code value} without an intermediate string.
+     *
+     * @param type      the cell's {@code t} attribute, null for a plain number
+     * @param value     the text of its {@code <v>} or inline {@code <t>} element
+     * @param formula   the text of its {@code <f>} element, empty when there is none
+     * @param dateStyle whether the cell's style has a date format
+     */
+    public static Object cellValue(String type, CharSequence value, CharSequence formula, boolean dateStyle,
+                                   SharedStrings strings) {
+        if (formula.length() > 0) return formula.toString();
+        if (type == null || "n".equals(type)) {
+            if (value.length() == 0) return null;
+            long wholeNumber = wholeNumber(value);
+            if (wholeNumber >= 0 && !dateStyle) return wholeNumber;
+            double numericValue = wholeNumber >= 0 ? wholeNumber : Double.parseDouble(value.toString());
+            if (dateStyle && DateUtil.isValidExcelDate(numericValue)) {
+                return excelDate(numericValue);
+            }
+            return (long) numericValue;
+        }
+        switch (type) {
+            case "s":
+                return strings.getItemAt(Integer.parseInt(value.toString())).getString().trim();
+            case "inlineStr":
+            case "str":
+                return value.toString().trim();
+            case "b":
+                return String.valueOf("1".equals(value.toString()));
+            case "e":
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * The date Excel shows for a serial day number in the 1900 date system, matching
+     * {@code DateUtil.getLocalDateTime(serial).toLocalDate()} without going through a Calendar.
+     */
+    static LocalDate excelDate(double serial) {
+        long day = (long) Math.floor(serial);
+        long epochDay = day - EXCEL_EPOCH_OFFSET;
+        // before March 1900 Excel's calendar is one day off from the real one; like POI, judged
+        // by the whole day before any carry below
+        if (day < FIRST_SERIAL_AFTER_1900_LEAP_BUG) epochDay++;
+        // POI rounds the time of day to the millisecond, which can carry into the next day
+        if (Math.round((serial - day) * MILLIS_PER_DAY) == MILLIS_PER_DAY) epochDay++;
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    // The value of a plain run of digits, as Excel writes whole numbers, or -1 for anything else.
+    private static long wholeNumber(CharSequence value) {
+        if (value.length() > 18) return -1;
+        long number = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch < '0' || ch > '9') return -1;
+            number = number * 10 + (ch - '0');
+        }
+        return number;
+    }
+
+    private class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable strings;
+        private final StylesTable styles;
+        private final RowHandler handler;
+        private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+
+        private final StringBuilder value = new StringBuilder();
+        private final StringBuilder formula = new StringBuilder();
+        private boolean inValue;
+        private boolean inFormula;
+
+        private Object[] cells;
+        private int rowIndex = -1;
+        private int column;
+        private int nextColumn;
+        private String cellType;
+        private String cellStyle;
+
+        SheetHandler(ReadOnlySharedStringsTable strings, StylesTable styles, RowHandler handler) {
+            this.strings = strings;
+            this.styles = styles;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attrs) {
+            switch (localName) {
+                case "dimension":
+                    String dimension = attrs.getValue("ref");
+                    if (dimension != null && dimensionListener != null) {
+                        String last = dimension.substring(dimension.indexOf(':') + 1);
+                        dimensionListener.accept(Integer.parseInt(last.substring(letters(last))) - 1);
+                    }
+                    break;
+                case "row":
+                    String r = attrs.getValue("r");
+                    rowIndex = r != null ? Integer.parseInt(r) - 1 : rowIndex + 1;
+                    cells = new Object[columns];
+                    nextColumn = 0;
+                    break;
+                case "c":
+                    String ref = attrs.getValue("r");
+                    column = ref != null ? columnIndex(ref) : nextColumn;
+                    cellType = attrs.getValue("t");
+                    cellStyle = attrs.getValue("s");
+                    value.setLength(0);
+                    formula.setLength(0);
+                    break;
+                case "v":
+                case "t":
+                    inValue = true;
+                    break;
+                case "f":
+                    inFormula = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) value.append(ch, start, length);
+            else if (inFormula) formula.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                case "t":
+                    inValue = false;
+                    break;
+                case "f":
+                    inFormula = false;
+                    break;
+                case "c":
+                    if (column < columns) {
+                        boolean numeric = cellType == null || "n".equals(cellType);
+                        cells[column] = cellValue(cellType, value, formula, numeric && isDateStyle(), strings);
+                    }
+                    nextColumn = column + 1;
+                    break;
+                case "row":
+                    handler.handle(rowIndex, cells);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private boolean isDateStyle() {
+            if (cellStyle == null || styles == null) return false;
+            int index = Integer.parseInt(cellStyle);
+            return dateStyles.computeIfAbsent(index, i -> {
+                XSSFCellStyle style = styles.getStyleAt(i);
+                return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+            });
+        }
+    }
+
+    private static int letters(String cellRef) {
+        int i = 0;
+        while (i < cellRef.length() && Character.isLetter(cellRef.charAt(i))) i++;
+        return i;
+    }
+
+    private static int columnIndex(String cellRef) {
+        int index = 0;
+        for (int i = 0; i < cellRef.length(); i++) {
+            char ch = cellRef.charAt(i);
+            if (ch < 'A' || ch > 'Z') break;
+            index = index * 26 + (ch - 'A' + 1);
+        }
+        return index - 1;
+    }
+}
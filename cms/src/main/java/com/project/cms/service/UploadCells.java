@@ -0,0 +1,110 @@
+package com.project.cms.service;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parsing of the bulk-upload cells that are more than a plain string, as the import maps
+ * each row. Kept apart from {@link CustomerImportPipeline} so they can be measured alone.
+ * <p>
+ * Cells arrive as {@link StreamingSheetReader} produces them: a {@code String}, a
+ * {@code Long} for a numeric cell or a {@code LocalDate} for a date-formatted one.
+ */
+public final class UploadCells {
+
+    private UploadCells() {
+    }
+
+    /** A cell as text; numbers and dates are written the way the sheet would show them in ISO. */
+    public static String text(Object cell) {
+        return cell == null ? null : cell.toString();
+    }
+
+    /** A date cell, either date-formatted in the sheet or typed as text. */
+    public static LocalDate date(Object cell) {
+        if (cell instanceof LocalDate) return (LocalDate) cell;
+        return parseDate(text(cell));
+    }
+
+    /** An id cell, either numeric in the sheet or typed as digits. */
+    public static long id(Object cell) {
+        long id = idOrNegative(cell);
+        if (id < 0) throw new RuntimeException("Invalid id: " + cell);
+        return id;
+    }
+
+    /** As {@link #id}, but -1 instead of an exception for a blank or non-numeric cell. */
+    public static long idOrNegative(Object cell) {
+        if (cell instanceof Long) return (Long) cell;
+        String value = text(cell);
+        return digits(value, 0, value == null ? 0 : value.length());
+    }
+
+    /**
+     * Accepts M/d/yyyy (which includes MM/dd/yyyy) and ISO dates. Parsed by hand, so a value
+     * in the other format, or no date at all, costs no exception until the final one.
+     */
+    public static LocalDate parseDate(String dateStr) {
+        LocalDate date = dateStr == null ? null
+                : dateStr.indexOf('/') >= 0 ? parseSlashed(dateStr) : parseIso(dateStr);
+        if (date == null) throw new RuntimeException("Invalid date format: " + dateStr);
+        return date;
+    }
+
+    /** The comma-separated numbers of the mobileNumbers column, trimmed, blanks dropped. */
+    public static List<String> splitMobileNumbers(String mobileNumbers) {
+        List<String> numbers = new ArrayList<>(2);
+        int start = 0;
+        while (start <= mobileNumbers.length()) {
+            int end = mobileNumbers.indexOf(',', start);
+            if (end < 0) end = mobileNumbers.length();
+            String number = mobileNumbers.substring(start, end).trim();
+            if (!number.isEmpty()) numbers.add(number);
+            start = end + 1;
+        }
+        return numbers;
+    }
+
+    // M/d/yyyy with one or two digit month and day; like the formatter it replaces, a day past
+    // the end of the month (2/30) means the month's last day
+    private static LocalDate parseSlashed(String s) {
+        int firstSlash = s.indexOf('/');
+        int secondSlash = s.indexOf('/', firstSlash + 1);
+        if (secondSlash < 0 || firstSlash > 2 || secondSlash - firstSlash > 3 || s.length() - secondSlash != 5) {
+            return null;
+        }
+        return date(digits(s, secondSlash + 1, s.length()), digits(s, 0, firstSlash),
+                digits(s, firstSlash + 1, secondSlash), true);
+    }
+
+    // yyyy-MM-dd
+    private static LocalDate parseIso(String s) {
+        if (s.length() != 10 || s.charAt(4) != '-' || s.charAt(7) != '-') return null;
+        return date(digits(s, 0, 4), digits(s, 5, 7), digits(s, 8, 10), false);
+    }
+
+    private static LocalDate date(long year, long month, long day, boolean clampDay) {
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) return null;
+        int lastDay = month == 2 ? (Year.isLeap(year) ? 29 : 28)
+                : month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+        if (day > lastDay) {
+            if (!clampDay) return null;
+            day = lastDay;
+        }
+        return LocalDate.of((int) year, (int) month, (int) day);
+    }
+
+    // The non-negative number in s[start, end), or -1 unless that is 1 to 18 ASCII digits.
+    private static long digits(String s, int start, int end) {
+        if (s == null || end <= start || end - start > 18) return -1;
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char ch = s.charAt(i);
+            if (ch < '0' || ch > '9') return -1;
+            value = value * 10 + (ch - '0');
+        }
+        return value;
+    }
+}
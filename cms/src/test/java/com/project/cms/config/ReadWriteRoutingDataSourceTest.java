@@ -0,0 +1,80 @@
+package com.project.cms.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+
+    private final ReadWriteRoutingDataSource routing =
+            new ReadWriteRoutingDataSource(primary, replica, Duration.ofSeconds(30), Duration.ofSeconds(5));
+
+    @AfterEach
+    void cleanup() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testConnectionsWithCredentialsAreRoutedLikeOthers() throws SQLException {
+        when(primary.getConnection("app", "secret")).thenReturn(primaryConnection);
+        when(replica.getConnection("app", "secret")).thenReturn(replicaConnection);
+
+        assertSame(primaryConnection, routing.getConnection("app", "secret"));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(replicaConnection, routing.getConnection("app", "secret"));
+    }
+
+    @Test
+    void testConnectionsWithCredentialsFallBackToThePrimary() throws SQLException {
+        when(primary.getConnection("app", "secret")).thenReturn(primaryConnection);
+        when(replica.getConnection("app", "secret")).thenThrow(new SQLException("replica down"));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, routing.getConnection("app", "secret"));
+        // skipped for retry-after without asking it again
+        assertSame(primaryConnection, routing.getConnection("app", "secret"));
+        assertEquals(2, routing.getFallbacks());
+    }
+
+    @Test
+    void testReadPrimaryCookieOnlyCountsUntilItsDeadline() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        withCookie(System.currentTimeMillis() - 1);
+        assertSame(replicaConnection, routing.getConnection());
+        withCookie(System.currentTimeMillis() + 2_000);
+        assertSame(primaryConnection, routing.getConnection());
+        // a deadline further out than read-your-writes allows is cut back to it, not rejected
+        withCookie(Long.MAX_VALUE);
+        assertSame(primaryConnection, routing.getConnection());
+    }
+
+    private static void withCookie(long until) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(ReadWriteRoutingDataSource.READ_PRIMARY_COOKIE, Long.toString(until)));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, new MockHttpServletResponse()));
+    }
+}
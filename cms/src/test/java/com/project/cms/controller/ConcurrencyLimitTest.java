@@ -0,0 +1,107 @@
+package com.project.cms.controller;
+
+import com.project.cms.config.ConcurrencyLimitFilter;
+import com.project.cms.dto.CustomerFilter;
+import com.project.cms.service.CustomerExportService;
+import com.project.cms.service.CustomerService;
+import com.project.cms.service.ImportJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class ConcurrencyLimitTest {
+
+    @RestController
+    static class SlowController {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @GetMapping("/api/slow")
+        String slow() throws InterruptedException {
+            entered.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return "done";
+        }
+
+        @GetMapping("/api/fast")
+        String fast() {
+            return "done";
+        }
+    }
+
+    @Test
+    void testRequestsOverTheLimitWaitThenGet503() throws Exception {
+        SlowController controller = new SlowController();
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .addFilter(new ConcurrencyLimitFilter(1, Duration.ofMillis(200)), "/api/*")
+                .build();
+
+        CompletableFuture<Integer> slow = CompletableFuture.supplyAsync(() -> {
+            try {
+                return mockMvc.perform(get("/api/slow")).andReturn().getResponse().getStatus();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(controller.entered.await(10, TimeUnit.SECONDS));
+
+        mockMvc.perform(get("/api/fast"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+
+        controller.release.countDown();
+        assertEquals(200, slow.get(10, TimeUnit.SECONDS));
+        mockMvc.perform(get("/api/fast")).andExpect(status().isOk());
+    }
+
+    @Test
+    void testExportKeepsItsPermitUntilItHasStreamed() throws Exception {
+        CountDownLatch exporting = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CustomerExportService exportService = mock(CustomerExportService.class);
+        doAnswer(invocation -> {
+            exporting.countDown();
+            finish.await(10, TimeUnit.SECONDS);
+            invocation.getArgument(1, OutputStream.class).write("[]".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).writeJson(any(CustomerFilter.class), any(OutputStream.class));
+        CustomerController customers = new CustomerController(mock(CustomerService.class), mock(ImportJobService.class),
+                exportService, Duration.ZERO);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new SlowController(), customers)
+                .addFilter(new ConcurrencyLimitFilter(1, Duration.ofMillis(200)), "/api/*")
+                .build();
+
+        MvcResult export = mockMvc.perform(get("/api/customers/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertTrue(exporting.await(10, TimeUnit.SECONDS));
+        // the export's request thread has returned, but the body is still being written
+        mockMvc.perform(get("/api/fast"))
+                .andExpect(status().isServiceUnavailable());
+
+        finish.countDown();
+        mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andExpect(content().string("[]"));
+        mockMvc.perform(get("/api/fast")).andExpect(status().isOk());
+    }
+}
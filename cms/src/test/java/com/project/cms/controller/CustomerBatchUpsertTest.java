@@ -0,0 +1,93 @@
+package com.project.cms.controller;
+
+import com.project.cms.config.SqlObserver;
+import com.project.cms.dto.AddressDTO;
+import com.project.cms.dto.BatchItemResult;
+import com.project.cms.dto.CustomerDTO;
+import com.project.cms.service.CustomerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+public class CustomerBatchUpsertTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private SqlObserver sqlObserver;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setup() {
+        jdbc.update("delete from customer_mobile_numbers");
+        jdbc.update("delete from address");
+        jdbc.update("update customer set parent_customer_id = null");
+        jdbc.update("delete from customer");
+        jdbc.update("delete from city");
+        jdbc.update("delete from country");
+        jdbc.update("insert into country(id, name) values (1, 'Sri Lanka')");
+        jdbc.update("insert into city(id, name, country_id) values (1, 'Colombo', 1)");
+    }
+
+    @Test
+    void testUpsertStatementsDoNotGrowWithTheChunk() {
+        insertCustomers(40);
+
+        // the same statements for 2 customers as for 40: the existing customers come back with
+        // their addresses in the one lookup, their mobile numbers in one batch fetch, and the
+        // changes are written in batches
+        assertEquals(upsertStatements(0, 2), upsertStatements(2, 40));
+        assertEquals(40, jdbc.queryForObject("select count(*) from address where address_line1 like 'New %'", Integer.class));
+    }
+
+    private long upsertStatements(int from, int to) {
+        List<CustomerDTO> dtos = new ArrayList<>();
+        for (int r = from + 1; r <= to; r++) {
+            CustomerDTO dto = new CustomerDTO();
+            dto.name = "Customer " + r;
+            dto.dateOfBirth = LocalDate.of(1990, 1, 1);
+            dto.nic = String.format("%09dV", r);
+            dto.mobileNumbers = Collections.singletonList(String.format("+947%08d", r));
+            AddressDTO address = new AddressDTO();
+            address.addressLine1 = "New " + r;
+            address.addressLine2 = "";
+            address.cityId = 1L;
+            address.countryId = 1L;
+            dto.addresses = Collections.singletonList(address);
+            dtos.add(dto);
+        }
+
+        long before = sqlObserver.statements();
+        List<BatchItemResult> results = customerService.saveBatch(dtos, true);
+        long statements = sqlObserver.statements() - before;
+
+        for (BatchItemResult result : results) assertEquals(BatchItemResult.Status.UPDATED, result.status);
+        return statements;
+    }
+
+    private void insertCustomers(int rows) {
+        for (int r = 1; r <= rows; r++) {
+            jdbc.update("insert into customer(id, name, nic, date_of_birth, version) values (?, ?, ?, '1990-01-01', 0)",
+                    900000 + r, "Customer " + r, String.format("%09dV", r));
+            jdbc.update("insert into address(id, address_line1, address_line2, city_id, country_id, customer_id) "
+                    + "values (?, ?, '', 1, 1, ?)", 900000 + r, "Old " + r, 900000 + r);
+            jdbc.update("insert into customer_mobile_numbers(customer_id, mobile_numbers) values (?, ?)",
+                    900000 + r, String.format("+947%08d", r));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.project.cms.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.cms.entity.ImportJob;
+import com.project.cms.service.ImportJobService;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class CustomerChunkedUploadTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ImportJobService importJobService;
+
+    @BeforeEach
+    void setup() {
+        jdbc.update("delete from customer_mobile_numbers");
+        jdbc.update("delete from address");
+        jdbc.update("update customer set parent_customer_id = null");
+        jdbc.update("delete from customer");
+        jdbc.update("delete from city");
+        jdbc.update("delete from country");
+        jdbc.update("insert into country(id, name) values (1, 'Sri Lanka')");
+        jdbc.update("insert into city(id, name, country_id) values (1, 'Colombo', 1)");
+    }
+
+    @Test
+    void testChunksAreAssembledAndImported() throws Exception {
+        byte[] file = sheet(3);
+        long id = start(file.length);
+        int third = file.length / 3;
+
+        chunk(id, file, 0, third).andExpect(status().isOk())
+                .andExpect(jsonPath("$.receivedBytes").value(third));
+        chunk(id, file, third, 2 * third).andExpect(status().isOk());
+        // a dropped connection: the upload says where to carry on
+        mockMvc.perform(get("/api/customers/uploads/{id}", id))
+                .andExpect(jsonPath("$.receivedBytes").value(2 * third))
+                .andExpect(jsonPath("$.size").value(file.length))
+                .andExpect(jsonPath("$.status").value("RECEIVING"));
+        chunk(id, file, 2 * third, file.length).andExpect(status().isOk());
+
+        String body = mockMvc.perform(post("/api/customers/uploads/{id}/complete", id))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.fileName").value("customers.xlsx"))
+                .andReturn().getResponse().getContentAsString();
+        long jobId = objectMapper.readTree(body).get("id").asLong();
+        // completing again, say after a lost response, gives the same job
+        mockMvc.perform(post("/api/customers/uploads/{id}/complete", id))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value(jobId));
+
+        assertEquals(ImportJob.Status.COMPLETED, awaitJob(jobId).getStatus());
+        assertEquals(Arrays.asList("Customer 1", "Customer 2", "Customer 3"),
+                jdbc.queryForList("select name from customer order by name", String.class));
+    }
+
+    @Test
+    void testBadChunksAreNotCounted() throws Exception {
+        byte[] file = sheet(1);
+        long id = start(file.length);
+        int half = file.length / 2;
+
+        mockMvc.perform(put("/api/customers/uploads/{id}", id).param("offset", "0")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header("Digest", digest(Arrays.copyOfRange(file, 1, half + 1)))
+                        .content(Arrays.copyOfRange(file, 0, half)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/customers/uploads/{id}", id).param("offset", "0")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(Arrays.copyOfRange(file, 0, half)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/customers/uploads/{id}", id))
+                .andExpect(jsonPath("$.receivedBytes").value(0));
+
+        chunk(id, file, 0, half).andExpect(status().isOk());
+        chunk(id, file, 0, half).andExpect(status().isConflict());
+        mockMvc.perform(post("/api/customers/uploads/{id}/complete", id))
+                .andExpect(status().isConflict());
+
+        byte[] tooLong = Arrays.copyOf(file, file.length + 1);
+        chunk(id, tooLong, half, tooLong.length).andExpect(status().isBadRequest());
+        chunk(id, file, half, file.length).andExpect(jsonPath("$.receivedBytes").value(file.length));
+
+        mockMvc.perform(delete("/api/customers/uploads/{id}", id)).andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/customers/uploads/{id}", id)).andExpect(status().isNotFound());
+    }
+
+    private long start(long size) throws Exception {
+        String body = mockMvc.perform(post("/api/customers/uploads")
+                        .param("fileName", "customers.xlsx")
+                        .param("size", String.valueOf(size)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.receivedBytes").value(0))
+                .andReturn().getResponse().getContentAsString();
+        JsonNode session = objectMapper.readTree(body);
+        return session.get("id").asLong();
+    }
+
+    private ResultActions chunk(long id, byte[] file, int from, int to) throws Exception {
+        byte[] chunk = Arrays.copyOfRange(file, from, to);
+        return mockMvc.perform(put("/api/customers/uploads/{id}", id)
+                .param("offset", String.valueOf(from))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header("Digest", digest(chunk))
+                .content(chunk));
+    }
+
+    private static String digest(byte[] bytes) throws Exception {
+        return "sha-256=" + Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+    private static byte[] sheet(int rows) throws Exception {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = workbook.createSheet();
+            sheet.createRow(0).createCell(0).setCellValue("name");
+            for (int r = 1; r <= rows; r++) {
+                Row row = sheet.createRow(r);
+                row.createCell(0).setCellValue("Customer " + r);
+                row.createCell(1).setCellValue("1/2/1990");
+                row.createCell(2).setCellValue(String.format("90000000%dV", r));
+                row.createCell(3).setCellValue(r + " Galle Road");
+                row.createCell(4).setCellValue("");
+                row.createCell(5).setCellValue(1);
+                row.createCell(6).setCellValue(1);
+                row.createCell(7).setCellValue("07712345" + (10 + r));
+            }
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private ImportJob awaitJob(long jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        ImportJob job = importJobService.getJob(jobId);
+        while (job.getStatus() != ImportJob.Status.COMPLETED && job.getStatus() != ImportJob.Status.FAILED
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            job = importJobService.getJob(jobId);
+        }
+        return job;
+    }
+}
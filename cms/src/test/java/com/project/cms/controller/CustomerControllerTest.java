@@ -1,9 +1,16 @@
 package com.project.cms.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.cms.dto.BatchItemResult;
 import com.project.cms.dto.CustomerDTO;
+import com.project.cms.dto.CustomerFilter;
+import com.project.cms.dto.CustomerSlice;
+import com.project.cms.dto.FamilyMember;
 import com.project.cms.entity.Customer;
+import com.project.cms.entity.ImportJob;
+import com.project.cms.service.CustomerExportService;
 import com.project.cms.service.CustomerService;
+import com.project.cms.service.ImportJobService;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,11 +23,16 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
         import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
@@ -35,6 +47,12 @@ public class CustomerControllerTest {
     @MockBean
     private CustomerService customerService;
 
+    @MockBean
+    private ImportJobService importJobService;
+
+    @MockBean
+    private CustomerExportService exportService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -55,14 +73,78 @@ public class CustomerControllerTest {
 
     @Test
     void testGetAllCustomers() throws Exception {
-        when(customerService.getAllCustomers()).thenReturn(Arrays.asList(sampleCustomer));
+        when(customerService.getCustomers(any(CustomerFilter.class), eq("name,desc"), eq(50), eq("abc")))
+                .thenReturn(new CustomerSlice<>(Arrays.asList(sampleCustomer), true, "next"));
+
+        mockMvc.perform(get("/api/customers")
+                        .param("name", "Jo")
+                        .param("sort", "name,desc")
+                        .param("size", "50")
+                        .param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(sampleCustomer.getId()))
+                .andExpect(jsonPath("$.content[0].name").value(sampleCustomer.getName()))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+
+        verify(customerService, times(1)).getCustomers(
+                ArgumentMatchers.argThat(f -> "Jo".equals(f.namePrefix)), eq("name,desc"), eq(50), eq("abc"));
+    }
 
-        mockMvc.perform(get("/api/customers"))
+    @Test
+    void testGetAllCustomersRejectsBadSort() throws Exception {
+        when(customerService.getCustomers(any(CustomerFilter.class), eq("password"), anyInt(), isNull()))
+                .thenThrow(new IllegalArgumentException("Unsupported sort field: password"));
+
+        mockMvc.perform(get("/api/customers").param("sort", "password"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testExportCustomers() throws Exception {
+        doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write("[{\"id\":1}]".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).writeJson(any(CustomerFilter.class), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/customers/export").param("countryId", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // cms.export.timeout=0: no limit for the export, whatever the global async timeout
+        assertEquals(-1, result.getRequest().getAsyncContext().getTimeout());
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(sampleCustomer.getId()))
-                .andExpect(jsonPath("$[0].name").value(sampleCustomer.getName()));
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].id").value(1));
 
-        verify(customerService, times(1)).getAllCustomers();
+        verify(exportService, times(1)).writeJson(
+                ArgumentMatchers.argThat(f -> Long.valueOf(2).equals(f.countryId)), any(OutputStream.class));
+    }
+
+    @Test
+    void testExportCustomersAsCsv() throws Exception {
+        doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write("name\r\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).writeCsv(any(CustomerFilter.class), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/customers/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string("name\r\n"));
+    }
+
+    @Test
+    void testExportRejectsUnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/customers/export").param("format", "pdf"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(exportService);
     }
 
     @Test
@@ -77,6 +159,29 @@ public class CustomerControllerTest {
         verify(customerService, times(1)).getCustomer(1L);
     }
 
+    @Test
+    void testGetFamily() throws Exception {
+        when(customerService.getFamily(2L, 1)).thenReturn(Arrays.asList(
+                new FamilyMember(1L, "Parent", null, -1),
+                new FamilyMember(2L, "John Doe", 1L, 0),
+                new FamilyMember(3L, "Child", 2L, 1)));
+
+        mockMvc.perform(get("/api/customers/2/family").param("depth", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[2].parentId").value(2))
+                .andExpect(jsonPath("$[2].depth").value(1));
+    }
+
+    @Test
+    void testGetFamilyOfUnknownCustomer() throws Exception {
+        when(customerService.getFamily(99L, 3)).thenReturn(null);
+
+        mockMvc.perform(get("/api/customers/99/family"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void testCreateCustomer() throws Exception {
         when(customerService.createCustomer(any(CustomerDTO.class))).thenReturn(sampleCustomer);
@@ -91,6 +196,26 @@ public class CustomerControllerTest {
         verify(customerService, times(1)).createCustomer(any(CustomerDTO.class));
     }
 
+    @Test
+    void testBatchCustomers() throws Exception {
+        BatchItemResult created = new BatchItemResult(0, "123456789V");
+        created.set(BatchItemResult.Status.CREATED, 10L, null);
+        BatchItemResult invalid = new BatchItemResult(1, null);
+        invalid.set(BatchItemResult.Status.INVALID, null, "Name, date of birth and NIC are required");
+        when(customerService.saveBatch(anyList(), eq(true))).thenReturn(Arrays.asList(created, invalid));
+
+        mockMvc.perform(post("/api/customers/batch")
+                        .param("upsert", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Arrays.asList(sampleDto, new CustomerDTO()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].id").value(10))
+                .andExpect(jsonPath("$[1].status").value("INVALID"));
+
+        verify(customerService, times(1)).saveBatch(ArgumentMatchers.argThat(list -> list.size() == 2), eq(true));
+    }
+
     @Test
     void testUpdateCustomer() throws Exception {
         when(customerService.updateCustomer(eq(1L), any(CustomerDTO.class))).thenReturn(sampleCustomer);
@@ -105,6 +230,31 @@ public class CustomerControllerTest {
         verify(customerService, times(1)).updateCustomer(eq(1L), any(CustomerDTO.class));
     }
 
+    @Test
+    void testUpdateWithStaleVersionConflicts() throws Exception {
+        when(customerService.updateCustomer(eq(1L), any(CustomerDTO.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Customer.class, 1L));
+
+        mockMvc.perform(put("/api/customers/1")
+                        .header("If-Match", "\"4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sampleDto)))
+                .andExpect(status().isConflict());
+
+        verify(customerService).updateCustomer(eq(1L), ArgumentMatchers.argThat(dto -> dto.version == 4L));
+    }
+
+    @Test
+    void testUpdateRejectsMalformedIfMatch() throws Exception {
+        mockMvc.perform(put("/api/customers/1")
+                        .header("If-Match", "\"abc\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sampleDto)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(customerService);
+    }
+
     @Test
     void testUploadCustomers() throws Exception {
         MockMultipartFile mockFile = new MockMultipartFile(
@@ -114,13 +264,32 @@ public class CustomerControllerTest {
                 "dummy content".getBytes()
         );
 
-        doNothing().when(customerService).bulkUpload(any());
+        ImportJob job = new ImportJob();
+        job.setFileName("customers.xlsx");
+        job.setStatus(ImportJob.Status.QUEUED);
+        when(importJobService.submit(any())).thenReturn(job);
 
         mockMvc.perform(multipart("/api/customers/upload")
                         .file(mockFile))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.fileName").value("customers.xlsx"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+
+        verify(importJobService, times(1)).submit(any());
+    }
+
+    @Test
+    void testUploadStatus() throws Exception {
+        ImportJob job = new ImportJob();
+        job.setStatus(ImportJob.Status.RUNNING);
+        when(importJobService.getJob(7L)).thenReturn(job);
+
+        mockMvc.perform(get("/api/customers/upload/7"))
                 .andExpect(status().isOk())
-                .andExpect(content().string("File uploaded and customers processed successfully."));
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.rowsProcessed").value(0));
 
-        verify(customerService, times(1)).bulkUpload(any());
+        mockMvc.perform(get("/api/customers/upload/8"))
+                .andExpect(status().isNotFound());
     }
 }
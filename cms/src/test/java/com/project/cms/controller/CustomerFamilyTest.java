@@ -0,0 +1,138 @@
+package com.project.cms.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.cms.dto.CustomerDTO;
+import com.project.cms.repository.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Runs the recursive family queries for real; CustomerControllerTest mocks the service. H2
+// can't bind parameters in the second of two CTEs, so findFamilyRows' own SQL is run with its
+// bounds inlined instead of through the repository.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class CustomerFamilyTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @SpyBean
+    private CustomerRepository customerRepo;
+
+    @BeforeEach
+    void setup() throws Exception {
+        String familySql = CustomerRepository.class.getMethod("findFamilyRows", Long.class, int.class)
+                .getAnnotation(Query.class).value();
+        doAnswer(call -> jdbc.query(familySql.replace(":id", call.getArgument(0).toString())
+                                .replace(":depth", call.getArgument(1).toString()),
+                        (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getObject(3), rs.getInt(4)}))
+                .when(customerRepo).findFamilyRows(anyLong(), anyInt());
+
+        jdbc.update("delete from customer_mobile_numbers");
+        jdbc.update("delete from address");
+        jdbc.update("update customer set parent_customer_id = null");
+        jdbc.update("delete from customer");
+        // 1 <- 2 <- 3 <- 4, and 5 is a second child of 2
+        insert(1, null);
+        insert(2, 1L);
+        insert(3, 2L);
+        insert(4, 3L);
+        insert(5, 2L);
+        // a cycle left by links written outside the application: 10 <- 11 <- 12 <- 10
+        insert(10, null);
+        insert(11, 10L);
+        insert(12, 11L);
+        jdbc.update("update customer set parent_customer_id = 12 where id = 10");
+    }
+
+    @Test
+    void testFamilyIsBoundedByDepthEachWay() throws Exception {
+        mockMvc.perform(get("/api/customers/3/family").param("depth", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(2, 3, 4)))
+                .andExpect(jsonPath("$[*].depth").value(contains(-1, 0, 1)));
+
+        mockMvc.perform(get("/api/customers/2/family").param("depth", "2"))
+                .andExpect(jsonPath("$[*].id").value(contains(1, 2, 3, 5, 4)))
+                .andExpect(jsonPath("$[*].depth").value(contains(-1, 0, 1, 1, 2)))
+                .andExpect(jsonPath("$[4].parentId").value(3));
+
+        mockMvc.perform(get("/api/customers/99/family")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testCycleStopsAtTheDepthAndKeepsNearestPositions() throws Exception {
+        assertEquals(Arrays.asList(10L, 12L, 11L, 10L, 12L), ids(customerRepo.findAncestorIds(10L, 4)));
+        assertEquals(Arrays.asList(4L, 3L, 2L, 1L), ids(customerRepo.findAncestorIds(4L, 1000)));
+
+        mockMvc.perform(get("/api/customers/10/family").param("depth", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(12, 10, 11)))
+                .andExpect(jsonPath("$[*].depth").value(contains(-1, 0, 1)));
+    }
+
+    @Test
+    void testParentThatWouldFormACycleIsRejected() throws Exception {
+        update(1, 4L).andExpect(status().isInternalServerError())
+                .andExpect(content().string(containsString("cannot have its own descendant 4 as parent")));
+        update(2, 2L).andExpect(status().isInternalServerError());
+        assertEquals(null, jdbc.queryForObject("select parent_customer_id from customer where id = 1", Long.class));
+        assertEquals(1L, jdbc.queryForObject("select parent_customer_id from customer where id = 2", Long.class));
+
+        // moving 5 under its sibling's child is fine
+        update(5, 4L).andExpect(status().isOk());
+        assertEquals(4L, jdbc.queryForObject("select parent_customer_id from customer where id = 5", Long.class));
+    }
+
+    private void insert(long id, Long parentId) {
+        jdbc.update("insert into customer(id, name, nic, date_of_birth, parent_customer_id) values (?, ?, ?, '1990-01-01', ?)",
+                id, "Customer " + id, String.format("%09dV", id), parentId);
+    }
+
+    private ResultActions update(long id, Long parentId) throws Exception {
+        CustomerDTO dto = new CustomerDTO();
+        dto.setName("Customer " + id);
+        dto.nic = String.format("%09dV", id);
+        dto.dateOfBirth = LocalDate.of(1990, 1, 1);
+        dto.parentCustomerId = parentId;
+        return mockMvc.perform(put("/api/customers/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)));
+    }
+
+    private static List<Long> ids(List<Number> numbers) {
+        return numbers.stream().map(Number::longValue).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,87 @@
+package com.project.cms.controller;
+
+import com.project.cms.dto.BulkUploadResult;
+import com.project.cms.service.CustomerService;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+public class CustomerImportDuplicateTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setup() {
+        jdbc.update("delete from customer_mobile_numbers");
+        jdbc.update("delete from address");
+        jdbc.update("update customer set parent_customer_id = null");
+        jdbc.update("delete from customer");
+        jdbc.update("delete from city");
+        jdbc.update("delete from country");
+        jdbc.update("insert into country(id, name) values (1, 'Sri Lanka')");
+        jdbc.update("insert into city(id, name, country_id) values (1, 'Colombo', 1)");
+    }
+
+    @Test
+    void testDuplicateNicsInTheFileAndTheDatabaseAreSkipped() throws Exception {
+        jdbc.update("insert into customer(id, name, nic, date_of_birth) values "
+                + "(900001, 'Existing One', '903333333V', '1990-01-01'), (900002, 'Existing Two', '199012345678', '1990-01-01')");
+
+        BulkUploadResult result = customerService.bulkUpload(new MockMultipartFile("file", "customers.xlsx", null, sheet(
+                "Amal", "901111111V",
+                "Bimal", "902222222V",
+                "Amal again", "901111111v",
+                "Existing One again", "903333333V",
+                "Chamal", "200012345678",
+                "Chamal again", "200012345678",
+                "Existing Two again", "199012345678",
+                "Dinal", "P1234567",
+                "Dinal again", "p1234567")));
+
+        assertEquals(9, result.totalRows);
+        assertEquals(4, result.inserted);
+        assertEquals(3, result.skippedDuplicateNic);
+        assertEquals(2, result.skippedExistingNic);
+        assertEquals(0, result.failed);
+        assertEquals(Arrays.asList("199012345678", "200012345678", "901111111V", "902222222V", "903333333V", "P1234567"),
+                jdbc.queryForList("select nic from customer order by nic", String.class));
+    }
+
+    private static byte[] sheet(String... namesAndNics) throws Exception {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = workbook.createSheet();
+            sheet.createRow(0).createCell(0).setCellValue("name");
+            for (int i = 0; i < namesAndNics.length; i += 2) {
+                Row row = sheet.createRow(i / 2 + 1);
+                row.createCell(0).setCellValue(namesAndNics[i]);
+                row.createCell(1).setCellValue("1/2/1990");
+                row.createCell(2).setCellValue(namesAndNics[i + 1]);
+                row.createCell(3).setCellValue("1 Galle Road");
+                row.createCell(4).setCellValue("");
+                row.createCell(5).setCellValue(1);
+                row.createCell(6).setCellValue(1);
+                row.createCell(7).setCellValue("0771234567");
+            }
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+}
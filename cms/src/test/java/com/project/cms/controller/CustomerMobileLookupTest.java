@@ -0,0 +1,195 @@
+package com.project.cms.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.cms.dto.AddressDTO;
+import com.project.cms.dto.CustomerDTO;
+import com.project.cms.service.MobileNumberMigration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class CustomerMobileLookupTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MobileNumberMigration migration;
+
+    @BeforeEach
+    void setup() {
+        jdbc.update("delete from customer_mobile_numbers");
+        jdbc.update("delete from address");
+        jdbc.update("update customer set parent_customer_id = null");
+        jdbc.update("delete from customer");
+        jdbc.update("delete from city");
+        jdbc.update("delete from country");
+        jdbc.update("insert into country(id, name) values (1, 'Sri Lanka')");
+        jdbc.update("insert into city(id, name, country_id) values (1, 'Colombo', 1)");
+    }
+
+    @Test
+    void testNumbersAreStoredNormalizedAndFoundInAnyForm() throws Exception {
+        create("Kamal Perera", "901111111V", "077 123-4567", "(077) 1234567").andExpect(status().isOk());
+
+        assertEquals(Arrays.asList("+94771234567"),
+                jdbc.queryForList("select mobile_numbers from customer_mobile_numbers", String.class));
+        for (String dialled : Arrays.asList("0771234567", "+94771234567", "0094771234567", "94 77 123 4567")) {
+            mockMvc.perform(get("/api/customers/by-mobile/{number}", dialled))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].name").value("Kamal Perera"))
+                    .andExpect(jsonPath("$[0].addresses[0].addressLine1").value("1 Galle Road"));
+        }
+        mockMvc.perform(get("/api/customers/by-mobile/{number}", "0770000000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void testSharedNumberFindsEveryHolder() throws Exception {
+        create("Kamal Perera", "901111111V", "0771234567").andExpect(status().isOk());
+        create("Nimali Perera", "902222222V", "+94771234567").andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/customers/by-mobile/{number}", "0771234567"))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].name").value("Kamal Perera"))
+                .andExpect(jsonPath("$[1].name").value("Nimali Perera"));
+    }
+
+    @Test
+    void testRejectsWhatIsNotANumber() throws Exception {
+        create("Kamal Perera", "901111111V", "call me").andExpect(status().isInternalServerError());
+        assertEquals(0, (long) jdbc.queryForObject("select count(*) from customer", Long.class));
+
+        mockMvc.perform(get("/api/customers/by-mobile/{number}", "12"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testMigrationNormalizesExistingRows() throws Exception {
+        jdbc.update("insert into customer(id, name, nic, date_of_birth) values "
+                + "(1, 'Kamal Perera', '901111111V', '1990-01-01'), (2, 'Nimali Perera', '902222222V', '1990-01-01'),"
+                + " (3, 'Sunil Silva', '903333333V', '1990-01-01')");
+        jdbc.update("insert into customer_mobile_numbers(customer_id, mobile_numbers) values "
+                + "(1, '077 123 4567'), (1, '0771234567'), (2, '+94719876543'), (2, 'ask at desk'), (3, '071-555 5555')");
+
+        mockMvc.perform(post("/api/customers/mobile-numbers/migration")).andExpect(status().isAccepted());
+        awaitMigration();
+
+        mockMvc.perform(get("/api/customers/mobile-numbers/migration"))
+                .andExpect(jsonPath("$.running").value(false))
+                .andExpect(jsonPath("$.customersScanned").value(3))
+                .andExpect(jsonPath("$.customersUpdated").value(2))
+                .andExpect(jsonPath("$.invalidNumbers").value(1))
+                .andExpect(jsonPath("$.error").doesNotExist());
+        assertEquals(Arrays.asList("+94771234567"), numbers(1));
+        assertEquals(Arrays.asList("+94719876543", "ask at desk"), numbers(2));
+        assertEquals(Arrays.asList("+94715555555"), numbers(3));
+        // a rewritten customer gets a new version, so an edit made from the old numbers is refused
+        assertEquals(Arrays.asList(1L, 0L, 1L),
+                jdbc.queryForList("select version from customer order by id", Long.class));
+
+        mockMvc.perform(get("/api/customers/by-mobile/{number}", "0715555555"))
+                .andExpect(jsonPath("$[0].id").value(3));
+        mockMvc.perform(get("/api/customers/search").param("q", "071 555 5555"))
+                .andExpect(jsonPath("$[0].id").value(3));
+    }
+
+    @Test
+    void testMigrationRemovesRepeatedRowsOfTheOldListTableAndAddsUniqueKey() throws Exception {
+        // the table as the old List<String> mapping created it: no primary key, nullable numbers
+        jdbc.execute("drop table customer_mobile_numbers");
+        jdbc.execute("create table customer_mobile_numbers (customer_id bigint not null, mobile_numbers varchar(255),"
+                + " foreign key (customer_id) references customer(id))");
+        try {
+            jdbc.update("insert into customer(id, name, nic, date_of_birth) values "
+                    + "(1, 'Kamal Perera', '901111111V', '1990-01-01'), (2, 'Nimali Perera', '902222222V', '1990-01-01')");
+            jdbc.update("insert into customer_mobile_numbers(customer_id, mobile_numbers) values "
+                    + "(1, '0771234567'), (1, '0771234567'), (1, '0771234567'),"
+                    + " (2, '+94719876543'), (2, '+94719876543'), (2, 'ask at desk')");
+
+            mockMvc.perform(post("/api/customers/mobile-numbers/migration")).andExpect(status().isAccepted());
+            awaitMigration();
+
+            mockMvc.perform(get("/api/customers/mobile-numbers/migration"))
+                    .andExpect(jsonPath("$.duplicatesRemoved").value(3))
+                    .andExpect(jsonPath("$.customersUpdated").value(1))
+                    .andExpect(jsonPath("$.error").doesNotExist());
+            assertEquals(Arrays.asList("+94771234567"), numbers(1));
+            assertEquals(Arrays.asList("+94719876543", "ask at desk"), numbers(2));
+            assertThrows(DataIntegrityViolationException.class, () -> jdbc.update(
+                    "insert into customer_mobile_numbers(customer_id, mobile_numbers) values (2, 'ask at desk')"));
+
+            // nothing left to remove, and the key is not added twice
+            mockMvc.perform(post("/api/customers/mobile-numbers/migration")).andExpect(status().isAccepted());
+            awaitMigration();
+            mockMvc.perform(get("/api/customers/mobile-numbers/migration"))
+                    .andExpect(jsonPath("$.duplicatesRemoved").value(0))
+                    .andExpect(jsonPath("$.error").doesNotExist());
+        } finally {
+            jdbc.execute("drop table customer_mobile_numbers");
+            jdbc.execute("create table customer_mobile_numbers (customer_id bigint not null,"
+                    + " mobile_numbers varchar(255) not null, primary key (customer_id, mobile_numbers),"
+                    + " constraint uk_customer_mobile_number unique (customer_id, mobile_numbers),"
+                    + " foreign key (customer_id) references customer(id))");
+            jdbc.execute("create index idx_customer_mobile_number on customer_mobile_numbers (mobile_numbers)");
+        }
+    }
+
+    private List<String> numbers(long customerId) {
+        return jdbc.queryForList("select mobile_numbers from customer_mobile_numbers where customer_id = ?"
+                + " order by mobile_numbers", String.class, customerId);
+    }
+
+    private ResultActions create(String name, String nic, String... mobiles) throws Exception {
+        AddressDTO address = new AddressDTO();
+        address.addressLine1 = "1 Galle Road";
+        address.cityId = 1L;
+        address.countryId = 1L;
+        CustomerDTO dto = new CustomerDTO();
+        dto.setName(name);
+        dto.nic = nic;
+        dto.dateOfBirth = LocalDate.of(1990, 1, 1);
+        dto.mobileNumbers = Arrays.asList(mobiles);
+        dto.addresses = Arrays.asList(address);
+
+        return mockMvc.perform(post("/api/customers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)));
+    }
+
+    private void awaitMigration() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (migration.getStatus().running && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertFalse(migration.getStatus().running, "migration did not finish");
+    }
+}
@@ -0,0 +1,96 @@
+package com.project.cms.controller;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Serializes real customers from an in-memory database and counts the statements Hibernate
+ * prepares, so lazy associations that load one row at a time show up as a failure.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class CustomerReadQueryCountTest {
+
+    private static final int CUSTOMERS = 50;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        jdbc.update("delete from customer_mobile_numbers");
+        jdbc.update("delete from address");
+        jdbc.update("update customer set parent_customer_id = null");
+        jdbc.update("delete from customer");
+        jdbc.update("delete from city");
+        jdbc.update("delete from country");
+
+        jdbc.update("insert into country(id, name) values (1, 'Sri Lanka'), (2, 'India')");
+        jdbc.update("insert into city(id, name, country_id) values (1, 'Colombo', 1), (2, 'Kandy', 1), (3, 'Chennai', 2)");
+        for (int i = 1; i <= CUSTOMERS; i++) {
+            // every customer after the first has a parent, which has a parent of its own
+            jdbc.update("insert into customer(id, name, nic, date_of_birth, parent_customer_id) values (?, ?, ?, ?, ?)",
+                    i, "Customer " + i, String.format("%09dV", i), "1990-01-01", i > 1 ? i - 1 : null);
+            jdbc.update("insert into address(id, address_line1, city_id, country_id, customer_id) values (?, 'Home', ?, ?, ?)",
+                    2 * i, 1 + i % 3, i % 3 == 2 ? 2 : 1, i);
+            jdbc.update("insert into address(id, address_line1, city_id, country_id, customer_id) values (?, 'Work', 1, 1, ?)",
+                    2 * i + 1, i);
+            jdbc.update("insert into customer_mobile_numbers(customer_id, mobile_numbers) values (?, ?), (?, ?)",
+                    i, "07100000" + i, i, "07700000" + i);
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testPageOfCustomersLoadsInFixedNumberOfQueries() throws Exception {
+        mockMvc.perform(get("/api/customers").param("size", String.valueOf(CUSTOMERS)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(CUSTOMERS))
+                .andExpect(jsonPath("$.content[1].parentCustomerId").value(1))
+                .andExpect(jsonPath("$.content[1].addresses.length()").value(2))
+                .andExpect(jsonPath("$.content[1].addresses[0].city.name").exists())
+                .andExpect(jsonPath("$.content[1].mobileNumbers.length()").value(2));
+
+        // page select, one batch of addresses (with city/country joined), one batch of mobile numbers
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testSingleCustomerLoadsInFixedNumberOfQueries() throws Exception {
+        mockMvc.perform(get("/api/customers/{id}", CUSTOMERS))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.parentCustomerId").value(CUSTOMERS - 1))
+                .andExpect(jsonPath("$.parentCustomer").doesNotExist())
+                .andExpect(jsonPath("$.addresses.length()").value(2))
+                .andExpect(jsonPath("$.mobileNumbers.length()").value(2));
+
+        // customer with its addresses, then its mobile numbers
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+}
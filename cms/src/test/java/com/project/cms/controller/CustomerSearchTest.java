@@ -0,0 +1,167 @@
+package com.project.cms.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.cms.dto.AddressDTO;
+import com.project.cms.dto.CustomerDTO;
+import com.project.cms.service.CustomerSearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Writes customers through the API and looks them up through {@code /api/customers/search},
+ * so a write path that does not reach the search index shows up as a missing hit.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class CustomerSearchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CustomerSearchService searchService;
+
+    @BeforeEach
+    void setup() throws Exception {
+        jdbc.update("delete from customer_mobile_numbers");
+        jdbc.update("delete from address");
+        jdbc.update("update customer set parent_customer_id = null");
+        jdbc.update("delete from customer");
+        jdbc.update("delete from city");
+        jdbc.update("delete from country");
+        jdbc.update("insert into country(id, name) values (1, 'Sri Lanka')");
+        jdbc.update("insert into city(id, name, country_id) values (1, 'Colombo', 1)");
+        rebuild();
+
+        create("Johnathan Perera", "901234567V", "0771234567", "12 Galle Road");
+        create("Nimali Fernando", "199512345678", "0719876543", "4 Temple Lane");
+    }
+
+    @Test
+    void testFindsByNamePrefix() throws Exception {
+        mockMvc.perform(get("/api/customers/search").param("q", "joh"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Johnathan Perera"))
+                .andExpect(jsonPath("$[0].nic").value("901234567V"))
+                .andExpect(jsonPath("$[0].mobileNumbers[0]").value("+94771234567"))
+                .andExpect(jsonPath("$[0].addresses[0]").value("12 Galle Road"));
+    }
+
+    @Test
+    void testToleratesTypos() throws Exception {
+        mockMvc.perform(get("/api/customers/search").param("q", "nimaly fernadno"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Nimali Fernando"));
+    }
+
+    @Test
+    void testFindsByNicFragment() throws Exception {
+        mockMvc.perform(get("/api/customers/search").param("q", "4567v"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].nic").value("901234567V"));
+    }
+
+    @Test
+    void testFindsByPhoneFragment() throws Exception {
+        mockMvc.perform(get("/api/customers/search").param("q", "987 65"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Nimali Fernando"));
+    }
+
+    @Test
+    void testEveryWordMustMatch() throws Exception {
+        mockMvc.perform(get("/api/customers/search").param("q", "perera temple"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/customers/search").param("q", "nimali temple"))
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void testPatchIsSearchable() throws Exception {
+        Long id = jdbc.queryForObject("select id from customer where nic = '901234567V'", Long.class);
+        mockMvc.perform(patch("/api/customers/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Kasun Silva\"}"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/customers/search").param("q", "kasun"))
+                .andExpect(jsonPath("$[0].id").value(id));
+        mockMvc.perform(get("/api/customers/search").param("q", "johnathan"))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void testRebuildDropsCustomersDeletedBehindItsBack() throws Exception {
+        jdbc.update("delete from customer_mobile_numbers");
+        jdbc.update("delete from address");
+        jdbc.update("delete from customer where nic = '199512345678'");
+
+        rebuild();
+
+        mockMvc.perform(get("/api/customers/search").param("q", "nimali"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/customers/search").param("q", "johnathan"))
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void testRejectsBlankQuery() throws Exception {
+        mockMvc.perform(get("/api/customers/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void create(String name, String nic, String mobile, String line1) throws Exception {
+        AddressDTO address = new AddressDTO();
+        address.addressLine1 = line1;
+        address.cityId = 1L;
+        address.countryId = 1L;
+        CustomerDTO dto = new CustomerDTO();
+        dto.setName(name);
+        dto.nic = nic;
+        dto.dateOfBirth = LocalDate.of(1990, 1, 1);
+        dto.mobileNumbers = Collections.singletonList(mobile);
+        dto.addresses = Arrays.asList(address);
+
+        mockMvc.perform(post("/api/customers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk());
+    }
+
+    private void rebuild() throws Exception {
+        awaitRebuild(); // the one started for the empty index at startup
+        mockMvc.perform(post("/api/customers/search/rebuild")).andExpect(status().isAccepted());
+        awaitRebuild();
+    }
+
+    private void awaitRebuild() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (searchService.isRebuilding() && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertFalse(searchService.isRebuilding(), "rebuild did not finish");
+    }
+}
@@ -0,0 +1,269 @@
+package com.project.cms.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.cms.dto.AddressDTO;
+import com.project.cms.dto.CustomerDTO;
+import com.project.cms.service.CustomerService;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the SQL a {@code PUT} or {@code PATCH /api/customers/{id}} issues, to check that
+ * updates only write the rows that actually changed and that stale versions write nothing.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class CustomerUpdateStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        jdbc.update("delete from customer_mobile_numbers");
+        jdbc.update("delete from address");
+        jdbc.update("update customer set parent_customer_id = null");
+        jdbc.update("delete from customer");
+        jdbc.update("delete from city");
+        jdbc.update("delete from country");
+
+        jdbc.update("insert into country(id, name) values (1, 'Sri Lanka')");
+        jdbc.update("insert into city(id, name, country_id) values (1, 'Colombo', 1), (2, 'Kandy', 1)");
+        jdbc.update("insert into customer(id, name, nic, date_of_birth) values (1, 'John Doe', '900000001V', '1990-01-01')");
+        jdbc.update("insert into address(id, address_line1, address_line2, city_id, country_id, customer_id) values "
+                + "(1, 'Home', null, 1, 1, 1), (2, 'Work', 'Floor 2', 2, 1, 1)");
+        jdbc.update("insert into customer_mobile_numbers(customer_id, mobile_numbers) values (1, '+94711111111'), (1, '+94722222222')");
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testUnchangedUpdateOnlyReads() throws Exception {
+        update(currentState());
+
+        // customer with its addresses, then its mobile numbers; nothing written
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertWrites(0, 0, 0);
+        assertVersion(0);
+    }
+
+    @Test
+    void testUnchangedUpdateLeavesTheSessionFlushModeAlone() {
+        // the entity manager open-in-view binds for a request outlives the transaction
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            customerService.updateCustomer(1L, currentState());
+            assertEquals(FlushMode.AUTO, entityManager.unwrap(Session.class).getHibernateFlushMode());
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void testUnchangedUpdateDoesNotStopLaterWritesOfTheTransaction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            customerService.updateCustomer(1L, currentState());
+            CustomerDTO renamed = currentState();
+            renamed.setName("Jane Doe");
+            customerService.updateCustomer(1L, renamed);
+        });
+
+        assertEquals("Jane Doe", jdbc.queryForObject("select name from customer where id = 1", String.class));
+        assertVersion(1);
+    }
+
+    @Test
+    void testChangedAddressIsUpdatedInPlace() throws Exception {
+        CustomerDTO dto = currentState();
+        dto.addresses.get(1).addressLine2 = "Floor 3";
+
+        update(dto);
+
+        // the two reads, the address update and the customer's version bump
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertWrites(0, 1, 0);
+        assertEquals(0, statistics.getCollectionRecreateCount());
+        assertVersion(1);
+    }
+
+    @Test
+    void testReplacedMobileNumberWritesOnlyThatNumber() throws Exception {
+        CustomerDTO dto = currentState();
+        dto.mobileNumbers.set(1, "0733333333");
+
+        update(dto);
+
+        // the two reads, one delete for the old number, one insert for the new one and the version bump
+        assertEquals(5, statistics.getPrepareStatementCount());
+        assertWrites(0, 1, 0);
+        assertVersion(1);
+        assertEquals(0, statistics.getCollectionRecreateCount());
+        assertEquals(1, (long) jdbc.queryForObject(
+                "select count(*) from customer_mobile_numbers where mobile_numbers = '+94711111111'", Long.class));
+    }
+
+    @Test
+    void testRemovedAddressDeletesOnlyThatRow() throws Exception {
+        CustomerDTO dto = currentState();
+        dto.addresses.remove(0);
+
+        update(dto);
+
+        assertWrites(0, 0, 1);
+        assertEquals(1, (long) jdbc.queryForObject("select count(*) from address where id = 2", Long.class));
+        assertVersion(1);
+    }
+
+    @Test
+    void testStaleVersionIsRejectedWithoutWriting() throws Exception {
+        jdbc.update("update customer set version = 3 where id = 1");
+        CustomerDTO dto = currentState();
+        dto.setName("Jane Doe");
+
+        mockMvc.perform(put("/api/customers/{id}", 1)
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isConflict());
+
+        assertWrites(0, 0, 0);
+        assertVersion(3);
+    }
+
+    @Test
+    void testCurrentVersionIsAccepted() throws Exception {
+        CustomerDTO dto = currentState();
+        dto.setName("Jane Doe");
+        dto.version = 0L;
+
+        mockMvc.perform(put("/api/customers/{id}", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.version").value(1));
+    }
+
+    @Test
+    void testPatchIsOneUpdate() throws Exception {
+        mockMvc.perform(patch("/api/customers/{id}", 1)
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Jane Doe\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        // the UPDATE, then after commit the search index reads the customer and its two
+        // collections back, since the patch never loaded them
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals("Jane Doe", jdbc.queryForObject("select name from customer where id = 1", String.class));
+        assertEquals(2, (long) jdbc.queryForObject("select count(*) from address where customer_id = 1", Long.class));
+        assertVersion(1);
+    }
+
+    @Test
+    void testPatchWithStaleVersionConflicts() throws Exception {
+        mockMvc.perform(patch("/api/customers/{id}", 1)
+                        .header(HttpHeaders.IF_MATCH, "\"5\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nic\":\"900000002V\"}"))
+                .andExpect(status().isConflict());
+
+        assertEquals("900000001V", jdbc.queryForObject("select nic from customer where id = 1", String.class));
+        assertVersion(0);
+    }
+
+    @Test
+    void testPatchOfUnknownCustomer() throws Exception {
+        mockMvc.perform(patch("/api/customers/{id}", 99)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Jane Doe\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    private void update(CustomerDTO dto) throws Exception {
+        mockMvc.perform(put("/api/customers/{id}", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk());
+    }
+
+    private void assertWrites(long inserts, long updates, long deletes) {
+        assertEquals(inserts, statistics.getEntityInsertCount(), "entity inserts");
+        assertEquals(updates, statistics.getEntityUpdateCount(), "entity updates");
+        assertEquals(deletes, statistics.getEntityDeleteCount(), "entity deletes");
+    }
+
+    private void assertVersion(long expected) {
+        assertEquals(expected, (long) jdbc.queryForObject("select version from customer where id = 1", Long.class));
+    }
+
+    private static CustomerDTO currentState() {
+        CustomerDTO dto = new CustomerDTO();
+        dto.setName("John Doe");
+        dto.nic = "900000001V";
+        dto.dateOfBirth = LocalDate.of(1990, 1, 1);
+        dto.mobileNumbers = new ArrayList<>(Arrays.asList("0711111111", "0722222222"));
+        dto.addresses = new ArrayList<>(Arrays.asList(address("Home", null, 1L), address("Work", "Floor 2", 2L)));
+        return dto;
+    }
+
+    private static AddressDTO address(String line1, String line2, Long cityId) {
+        AddressDTO address = new AddressDTO();
+        address.addressLine1 = line1;
+        address.addressLine2 = line2;
+        address.cityId = cityId;
+        address.countryId = 1L;
+        return address;
+    }
+}
@@ -0,0 +1,90 @@
+package com.project.cms.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.cms.dto.AddressDTO;
+import com.project.cms.dto.CustomerDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@ActiveProfiles("h2")
+public class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setup() {
+        jdbc.update("delete from customer_mobile_numbers");
+        jdbc.update("delete from address");
+        jdbc.update("update customer set parent_customer_id = null");
+        jdbc.update("delete from customer");
+        jdbc.update("delete from city");
+        jdbc.update("delete from country");
+        jdbc.update("insert into country(id, name) values (1, 'Sri Lanka')");
+        jdbc.update("insert into city(id, name, country_id) values (1, 'Colombo', 1)");
+    }
+
+    @Test
+    void testPrometheusEndpointShowsWritesStatementsAndPool() throws Exception {
+        AddressDTO address = new AddressDTO();
+        address.addressLine1 = "1 Galle Road";
+        address.cityId = 1L;
+        address.countryId = 1L;
+        CustomerDTO dto = new CustomerDTO();
+        dto.setName("Kamal Perera");
+        dto.nic = "901111111V";
+        dto.dateOfBirth = LocalDate.of(1990, 1, 1);
+        dto.mobileNumbers = Arrays.asList("0771234567");
+        dto.addresses = Arrays.asList(address);
+        mockMvc.perform(post("/api/customers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk());
+        // the same NIC again rolls back
+        mockMvc.perform(post("/api/customers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isInternalServerError());
+        mockMvc.perform(get("/api/customers")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "cms_customer_write_seconds_bucket{application=\"cms\",operation=\"create\",outcome=\"committed\"")))
+                .andExpect(content().string(containsString(
+                        "cms_customer_write_seconds_count{application=\"cms\",operation=\"create\",outcome=\"rolled_back\",} 1.0")))
+                .andExpect(content().string(matchesPattern(
+                        "(?s).*cms_http_sql_statements_count\\{application=\"cms\",method=\"GET\",uri=\"/api/customers\",} 1\\.0.*")))
+                .andExpect(content().string(matchesPattern(
+                        "(?s).*cms_http_sql_statements_sum\\{application=\"cms\",method=\"GET\",uri=\"/api/customers\",} [1-9].*")))
+                .andExpect(content().string(containsString(
+                        "cms_http_sql_time_seconds_count{application=\"cms\",method=\"GET\",uri=\"/api/customers\",} 1.0")))
+                .andExpect(content().string(containsString("hikaricp_connections_pending")))
+                .andExpect(content().string(containsString("cms_import_rows_total{application=\"cms\",outcome=\"inserted\",}")));
+    }
+}
@@ -0,0 +1,53 @@
+package com.project.cms.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// IFEXISTS stops H2 from creating the database, so the replica is unreachable
+@SpringBootTest(properties = {
+        "cms.datasource.replica.url=jdbc:h2:mem:cms-replica-down;IFEXISTS=TRUE",
+        "cms.datasource.replica.hikari.connection-timeout=250"
+})
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@ActiveProfiles("h2")
+public class ReadReplicaFallbackTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setup() {
+        jdbc.update("delete from customer_mobile_numbers");
+        jdbc.update("delete from address");
+        jdbc.update("update customer set parent_customer_id = null");
+        jdbc.update("delete from customer");
+        jdbc.update("insert into customer(id, name, nic, date_of_birth, version) values (1001, 'On The Primary', '901111111V', '1990-01-01', 0)");
+    }
+
+    @Test
+    void testReadsFallBackToThePrimaryWhenTheReplicaIsDown() throws Exception {
+        mockMvc.perform(get("/api/customers"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("901111111V")));
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(content().string(containsString("cms_datasource_replica_fallbacks_total")))
+                .andExpect(content().string(containsString("hikaricp_connections_pending{application=\"cms\",pool=\"primary\",}")))
+                .andExpect(content().string(containsString("hikaricp_connections_pending{application=\"cms\",pool=\"replica\",}")));
+    }
+}
@@ -0,0 +1,168 @@
+package com.project.cms.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.cms.dto.CustomerDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import javax.servlet.http.Cookie;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * A second in-memory H2 database stands in for the replica. Each test copies the primary into it
+ * and then adds a customer to the primary only, so a response shows which database it came from.
+ * Open-in-view is on, as in every other test, so one request's transactions share a session.
+ */
+@SpringBootTest(properties = {
+        "cms.datasource.replica.url=" + ReadReplicaRoutingTest.REPLICA_URL,
+        "cms.datasource.replica.read-your-writes=5s"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class ReadReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:cms-replica;MODE=MariaDB;DB_CLOSE_DELAY=-1";
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setup() {
+        jdbc.update("delete from customer_mobile_numbers");
+        jdbc.update("delete from address");
+        jdbc.update("update customer set parent_customer_id = null");
+        jdbc.update("delete from customer");
+        jdbc.update("insert into customer(id, name, nic, date_of_birth, version) values (1001, 'Replicated', '901111111V', '1990-01-01', 0)");
+
+        replica.execute("drop all objects");
+        for (String statement : jdbc.queryForList("script", String.class)) {
+            replica.execute(statement);
+        }
+        jdbc.update("insert into customer(id, name, nic, date_of_birth, version) values (1002, 'Not Yet Replicated', '902222222V', '1990-01-01', 0)");
+    }
+
+    @Test
+    void testReadsGoToTheReplica() throws Exception {
+        mockMvc.perform(get("/api/customers"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("901111111V")))
+                .andExpect(content().string(not(containsString("902222222V"))));
+    }
+
+    @Test
+    void testWritesGoToThePrimaryAndTheWriterReadsThem() throws Exception {
+        CustomerDTO dto = new CustomerDTO();
+        dto.setName("Kamal Perera");
+        dto.nic = "903333333V";
+        dto.dateOfBirth = LocalDate.of(1990, 1, 1);
+        MvcResult created = mockMvc.perform(post("/api/customers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals(1, jdbc.queryForObject("select count(*) from customer where nic = '903333333V'", Integer.class));
+        assertEquals(0, replica.queryForObject("select count(*) from customer where nic = '903333333V'", Integer.class));
+
+        Cookie readPrimary = created.getResponse().getCookie("cms-read-primary-until");
+        assertNotNull(readPrimary);
+        mockMvc.perform(get("/api/customers").cookie(readPrimary))
+                .andExpect(content().string(containsString("903333333V")));
+        mockMvc.perform(get("/api/customers"))
+                .andExpect(content().string(not(containsString("903333333V"))));
+    }
+
+    // each chunk and the completion look the upload up before they write to it; the writes must
+    // not follow those reads onto the replica
+    @Test
+    void testChunkedUploadIsWrittenToThePrimary() throws Exception {
+        byte[] file = "not a workbook, the import may fail".getBytes(StandardCharsets.UTF_8);
+        MvcResult started = mockMvc.perform(post("/api/customers/uploads")
+                        .param("fileName", "customers.xlsx")
+                        .param("size", String.valueOf(file.length)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        long id = objectMapper.readTree(started.getResponse().getContentAsString()).get("id").asLong();
+        Cookie readPrimary = started.getResponse().getCookie("cms-read-primary-until");
+        assertNotNull(readPrimary);
+
+        chunk(id, file, 0, 4, readPrimary).andExpect(status().isOk());
+        assertEquals(4L, jdbc.queryForObject("select received_bytes from upload_session where id = ?", Long.class, id));
+        chunk(id, file, 4, file.length, readPrimary).andExpect(status().isOk());
+
+        String body = mockMvc.perform(post("/api/customers/uploads/{id}/complete", id).cookie(readPrimary))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        long jobId = objectMapper.readTree(body).get("id").asLong();
+
+        assertEquals("COMPLETED", jdbc.queryForObject("select status from upload_session where id = ?", String.class, id));
+        assertEquals((long) file.length, jdbc.queryForObject("select received_bytes from upload_session where id = ?", Long.class, id));
+        assertEquals(jobId, jdbc.queryForObject("select import_job_id from upload_session where id = ?", Long.class, id));
+        assertEquals(0, replica.queryForObject("select count(*) from upload_session where id = ?", Integer.class, id));
+        assertEquals(0, replica.queryForObject("select count(*) from import_job where id = ?", Integer.class, jobId));
+        awaitJob(jobId);
+    }
+
+    @Test
+    void testCancelledUploadIsDeletedFromThePrimary() throws Exception {
+        MvcResult started = mockMvc.perform(post("/api/customers/uploads")
+                        .param("fileName", "customers.xlsx")
+                        .param("size", "10"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        long id = objectMapper.readTree(started.getResponse().getContentAsString()).get("id").asLong();
+        assertEquals(1, jdbc.queryForObject("select count(*) from upload_session where id = ?", Integer.class, id));
+
+        mockMvc.perform(delete("/api/customers/uploads/{id}", id)
+                        .cookie(started.getResponse().getCookie("cms-read-primary-until")))
+                .andExpect(status().isNoContent());
+        assertEquals(0, jdbc.queryForObject("select count(*) from upload_session where id = ?", Integer.class, id));
+    }
+
+    private ResultActions chunk(long id, byte[] file, int from, int to, Cookie readPrimary) throws Exception {
+        byte[] chunk = Arrays.copyOfRange(file, from, to);
+        return mockMvc.perform(put("/api/customers/uploads/{id}", id)
+                .param("offset", String.valueOf(from))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header("Digest", "sha-256=" + Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(chunk)))
+                .cookie(readPrimary)
+                .content(chunk));
+    }
+
+    // the import runs in the background; let it finish before the next test resets the data
+    private void awaitJob(long jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline && jdbc.queryForObject(
+                "select count(*) from import_job where id = ? and status in ('COMPLETED', 'FAILED')", Integer.class, jobId) == 0) {
+            Thread.sleep(20);
+        }
+    }
+}
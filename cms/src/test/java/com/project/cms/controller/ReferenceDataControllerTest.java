@@ -0,0 +1,123 @@
+package com.project.cms.controller;
+
+import com.project.cms.entity.City;
+import com.project.cms.entity.Country;
+import com.project.cms.service.CityIndex;
+import com.project.cms.service.ReferenceDataCache;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest({CityController.class, CountryController.class})
+public class ReferenceDataControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ReferenceDataCache referenceData;
+
+    private final ReferenceDataCache.Representation countries = new ReferenceDataCache.Representation(
+            "[{\"id\":1,\"name\":\"Sri Lanka\"}]".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    void testGetCountriesServesCachedJsonWithETag() throws Exception {
+        when(referenceData.getCountriesJson()).thenReturn(countries);
+
+        mockMvc.perform(get("/api/countries"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, countries.etag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, must-revalidate"))
+                .andExpect(jsonPath("$[0].name").value("Sri Lanka"));
+    }
+
+    @Test
+    void testGetCountriesAnswersMatchingETagWithNotModified() throws Exception {
+        when(referenceData.getCountriesJson()).thenReturn(countries);
+
+        mockMvc.perform(get("/api/countries").header(HttpHeaders.IF_NONE_MATCH, countries.etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, countries.etag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testGetCitiesReturnsFullBodyForStaleETag() throws Exception {
+        ReferenceDataCache.Representation cities = new ReferenceDataCache.Representation(
+                "[{\"id\":1,\"name\":\"Colombo\"}]".getBytes(StandardCharsets.UTF_8));
+        when(referenceData.getCitiesJson()).thenReturn(cities);
+
+        mockMvc.perform(get("/api/cities").header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Colombo"));
+    }
+
+    @Test
+    void testSearchCitiesByPrefix() throws Exception {
+        when(referenceData.getCityIndex()).thenReturn(sampleIndex());
+
+        mockMvc.perform(get("/api/cities").param("q", "ka"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("Kalutara"))
+                .andExpect(jsonPath("$[1].name").value("Kandy"));
+
+        mockMvc.perform(get("/api/cities").param("q", "K").param("limit", "1"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void testGetCitiesOfCountry() throws Exception {
+        when(referenceData.countryExists(1L)).thenReturn(true);
+        when(referenceData.getCityIndex()).thenReturn(sampleIndex());
+
+        mockMvc.perform(get("/api/countries/1/cities"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name").value(contains("Colombo", "Kalutara", "Kandy")));
+    }
+
+    @Test
+    void testGetCitiesOfUnknownCountry() throws Exception {
+        when(referenceData.countryExists(9L)).thenReturn(false);
+
+        mockMvc.perform(get("/api/countries/9/cities"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static CityIndex sampleIndex() {
+        Country sriLanka = country(1L, "Sri Lanka");
+        Country india = country(2L, "India");
+        return new CityIndex(Arrays.asList(
+                city(1L, "Kandy", sriLanka), city(2L, "Colombo", sriLanka),
+                city(3L, "Kalutara", sriLanka), city(4L, "Kochi", india)));
+    }
+
+    private static Country country(Long id, String name) {
+        Country country = new Country();
+        ReflectionTestUtils.setField(country, "id", id);
+        ReflectionTestUtils.setField(country, "name", name);
+        return country;
+    }
+
+    private static City city(Long id, String name, Country country) {
+        City city = new City();
+        ReflectionTestUtils.setField(city, "id", id);
+        ReflectionTestUtils.setField(city, "name", name);
+        ReflectionTestUtils.setField(city, "country", country);
+        return city;
+    }
+}
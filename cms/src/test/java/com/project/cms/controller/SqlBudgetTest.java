@@ -0,0 +1,75 @@
+package com.project.cms.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.cms.config.SqlBudgetExceededException;
+import com.project.cms.dto.AddressDTO;
+import com.project.cms.dto.CustomerDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "cms.sql.budget.max-statements-per-request=3")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class SqlBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setup() {
+        jdbc.update("delete from customer_mobile_numbers");
+        jdbc.update("delete from address");
+        jdbc.update("update customer set parent_customer_id = null");
+        jdbc.update("delete from customer");
+        jdbc.update("delete from city");
+        jdbc.update("delete from country");
+        jdbc.update("insert into country(id, name) values (1, 'Sri Lanka')");
+        jdbc.update("insert into city(id, name, country_id) values (1, 'Colombo', 1)");
+    }
+
+    @Test
+    void testRequestWithinBudgetPasses() throws Exception {
+        mockMvc.perform(get("/api/customers")).andExpect(status().isOk());
+    }
+
+    @Test
+    void testRequestOverBudgetFails() throws Exception {
+        AddressDTO address = new AddressDTO();
+        address.addressLine1 = "1 Galle Road";
+        address.cityId = 1L;
+        address.countryId = 1L;
+        CustomerDTO dto = new CustomerDTO();
+        dto.setName("Kamal Perera");
+        dto.nic = "901111111V";
+        dto.dateOfBirth = LocalDate.of(1990, 1, 1);
+        dto.mobileNumbers = Arrays.asList("0771234567", "0777654321");
+        dto.addresses = Arrays.asList(address);
+
+        SqlBudgetExceededException e = assertThrows(SqlBudgetExceededException.class, () ->
+                mockMvc.perform(post("/api/customers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto))));
+        assertTrue(e.getMessage().startsWith("POST /api/customers executed "), e.getMessage());
+    }
+}
@@ -0,0 +1,32 @@
+package com.project.cms.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CustomerExportServiceTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', quoteCharacter = '`', value = {
+            "Kamal Perera|Kamal Perera",
+            "12, Main St|`\"12, Main St\"`",
+            "say \"hi\"|`\"say \"\"hi\"\"\"`",
+            "=HYPERLINK(\"x\")|`\"'=HYPERLINK(\"\"x\"\")\"`",
+            "+94771234567|`\"'+94771234567\"`",
+            "-2+3|`\"'-2+3\"`",
+            "@SUM(A1)|`\"'@SUM(A1)\"`",
+            "a=b|a=b",
+    })
+    void testCsvFieldQuotesSpecialCharactersAndNeutralisesFormulas(String value, String expected) {
+        assertEquals(expected, CustomerExportService.csvField(value));
+    }
+
+    @Test
+    void testCsvFieldNeutralisesLeadingTabAndCarriageReturn() {
+        assertEquals("\"'\t1\"", CustomerExportService.csvField("\t1"));
+        assertEquals("\"'\r1\"", CustomerExportService.csvField("\r1"));
+        assertEquals("", CustomerExportService.csvField(""));
+    }
+}
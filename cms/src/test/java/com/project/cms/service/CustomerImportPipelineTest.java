@@ -0,0 +1,25 @@
+package com.project.cms.service;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CustomerImportPipelineTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            // cores, connections after headroom, concurrent imports, writers, expected workers
+            "16, 8, 2, 2, 2",
+            "2, 8, 2, 2, 2",
+            "1, 8, 2, 2, 1",
+            "16, 48, 2, 2, 16",
+            "16, 48, 4, 2, 10",
+            "16, 8, 1, 2, 6",
+            "16, 3, 2, 2, 1",
+            "16, 0, 2, 2, 1",
+    })
+    void testDefaultWorkersFitTheConnectionPool(int cores, int connections, int imports, int writers, int expected) {
+        assertEquals(expected, CustomerImportPipeline.defaultWorkers(cores, connections, imports, writers));
+    }
+}
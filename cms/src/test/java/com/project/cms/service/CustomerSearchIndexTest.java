@@ -0,0 +1,94 @@
+package com.project.cms.service;
+
+import com.project.cms.dto.CustomerSearchHit;
+import com.project.cms.entity.Customer;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CustomerSearchIndexTest {
+
+    private CustomerSearchIndex index;
+
+    @BeforeEach
+    void open() throws IOException {
+        index = new CustomerSearchIndex(new ByteBuffersDirectory());
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        index.close();
+    }
+
+    @Test
+    void testOlderVersionArrivingLateIsDropped() throws IOException {
+        write(customer(1L, 4, "Nimal Perera"));
+        // before the refresh, the newer version is only known in memory
+        write(customer(1L, 3, "Kamal Perera"));
+        index.refresh();
+        assertEquals("Nimal Perera", onlyHit("perera").name);
+
+        // after it, from the document
+        write(customer(1L, 2, "Sunil Perera"));
+        index.refresh();
+        assertEquals("Nimal Perera", onlyHit("perera").name);
+
+        write(customer(1L, 5, "Ruwan Perera"));
+        index.refresh();
+        assertEquals("Ruwan Perera", onlyHit("perera").name);
+    }
+
+    @Test
+    void testRebuildKeepsCustomerRewrittenAtTheSameVersion() throws IOException {
+        write(customer(1L, 2, "Nimal Perera"));
+        write(customer(2L, 0, "Kamal Silva"));
+        index.refresh();
+
+        index.startRebuild();
+        write(customer(1L, 2, "Nimal Perera"));
+        index.finishRebuild();
+        index.refresh();
+
+        assertEquals(1, index.size());
+        assertEquals(1L, onlyHit("nimal").id);
+    }
+
+    @Test
+    void testDeletedCustomerIsNotBroughtBackByALateWrite() throws IOException {
+        write(customer(1L, 1, "Nimal Perera"));
+        index.refresh();
+
+        index.delete(Collections.singleton(1L));
+        write(customer(1L, 1, "Nimal Perera"));
+        index.refresh();
+
+        assertTrue(index.search("nimal", 10).isEmpty());
+    }
+
+    private void write(Customer customer) throws IOException {
+        index.update(Collections.singletonList(customer));
+    }
+
+    private CustomerSearchHit onlyHit(String text) throws IOException {
+        List<CustomerSearchHit> hits = index.search(text, 10);
+        assertEquals(1, hits.size(), () -> "hits for " + text + ": " + hits.size());
+        return hits.get(0);
+    }
+
+    private static Customer customer(Long id, long version, String name) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setName(name);
+        ReflectionTestUtils.setField(customer, "version", version);
+        return customer;
+    }
+}
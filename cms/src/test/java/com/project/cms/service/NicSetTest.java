@@ -0,0 +1,65 @@
+package com.project.cms.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NicSetTest {
+
+    @Test
+    void testKeepsEveryNicThroughResizes() {
+        NicSet set = new NicSet();
+        // well past the initial table, and sequential, so many probe past a taken slot
+        for (int i = 0; i < 20_000; i++) {
+            assertTrue(set.add(String.format("%09dV", i)));
+            assertTrue(set.add(String.format("%012d", 199_000_000_000L + i)));
+        }
+        assertEquals(40_000, set.size());
+        for (int i = 0; i < 20_000; i++) {
+            assertTrue(set.contains(String.format("%09dV", i)));
+            assertFalse(set.add(String.format("%012d", 199_000_000_000L + i)));
+            assertFalse(set.contains(String.format("%09dX", i)));
+        }
+        assertFalse(set.contains("020000000V"));
+        assertEquals(40_000, set.size());
+    }
+
+    @Test
+    void testFormatsAndSuffixesAreDistinct() {
+        NicSet set = new NicSet();
+        // the same digits in each format pack to different keys
+        assertTrue(set.add("000000001V"));
+        assertTrue(set.add("000000001X"));
+        assertTrue(set.add("000000000001"));
+        // all zeros still packs to a non-empty key
+        assertTrue(set.add("000000000000"));
+        assertTrue(set.add("000000000V"));
+        assertEquals(5, set.size());
+
+        assertFalse(set.add("000000001v"));
+        assertFalse(set.add("000000001x"));
+        assertTrue(set.contains("000000000000"));
+        assertFalse(set.contains("000000002V"));
+        assertFalse(set.contains("00000000001"));
+    }
+
+    @Test
+    void testOtherFormatsFallBackIgnoringCase() {
+        NicSet set = new NicSet();
+        // wrong length, wrong suffix, letters among the digits
+        assertTrue(set.add("N1234567"));
+        assertTrue(set.add("12345678V"));
+        assertTrue(set.add("123456789Z"));
+        assertTrue(set.add("12345678AV"));
+        assertTrue(set.add("1234567890123"));
+
+        assertFalse(set.add("n1234567"));
+        assertFalse(set.add("123456789z"));
+        assertTrue(set.contains("12345678av"));
+        assertFalse(set.contains("12345678V "));
+        assertTrue(set.add("123456789V"));
+        assertEquals(6, set.size());
+    }
+}
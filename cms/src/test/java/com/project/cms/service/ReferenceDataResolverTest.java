@@ -0,0 +1,108 @@
+package com.project.cms.service;
+
+import com.project.cms.entity.City;
+import com.project.cms.entity.Country;
+import com.project.cms.repository.CityRepository;
+import com.project.cms.repository.CountryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ReferenceDataResolverTest {
+
+    private final CityRepository cityRepo = mock(CityRepository.class);
+    private final CountryRepository countryRepo = mock(CountryRepository.class);
+    private final ReferenceDataResolver resolver = new ReferenceDataResolver(cityRepo, countryRepo);
+
+    @Test
+    void testHitIsLoadedOnce() {
+        City colombo = city(1L);
+        when(cityRepo.findAllById(Collections.singleton(1L))).thenReturn(Collections.singletonList(colombo));
+
+        assertSame(colombo, resolver.city(1L));
+        assertSame(colombo, resolver.city(1L));
+        verify(cityRepo, times(1)).findAllById(any());
+        assertNull(resolver.city(null));
+        verifyNoMoreInteractions(cityRepo);
+    }
+
+    @Test
+    void testMissIsCachedAsNull() {
+        when(countryRepo.findAllById(any())).thenReturn(Collections.emptyList());
+
+        assertNull(resolver.country(99L));
+        assertNull(resolver.country(99L));
+        verify(countryRepo, times(1)).findAllById(Collections.singleton(99L));
+    }
+
+    @Test
+    void testPreloadFetchesOnlyUnknownIdsInOneQuery() {
+        Country sriLanka = country(1L);
+        when(countryRepo.findAllById(new HashSet<>(Arrays.asList(1L, 2L)))).thenReturn(Collections.singletonList(sriLanka));
+        when(cityRepo.findAllById(any())).thenReturn(Collections.emptyList());
+
+        resolver.preload(Arrays.asList(5L, null, 5L), Arrays.asList(1L, 2L, 1L));
+        resolver.preload(Collections.singletonList(5L), Collections.singletonList(2L));
+
+        assertSame(sriLanka, resolver.country(1L));
+        assertNull(resolver.country(2L));
+        assertNull(resolver.city(5L));
+        verify(countryRepo, times(1)).findAllById(any());
+        verify(cityRepo, times(1)).findAllById(Collections.singleton(5L));
+    }
+
+    @Test
+    void testRememberedEntitiesResolveWithoutQueries() {
+        City kandy = city(7L);
+        Country sriLanka = country(3L);
+        resolver.remember(kandy);
+        resolver.remember(sriLanka);
+        resolver.remember((City) null);
+
+        assertSame(kandy, resolver.city(7L));
+        assertSame(sriLanka, resolver.country(3L));
+        verifyNoInteractions(cityRepo, countryRepo);
+    }
+
+    @Test
+    void testRememberedEntityReplacesACachedMiss() {
+        when(cityRepo.findAllById(any())).thenReturn(Collections.emptyList());
+        assertNull(resolver.city(8L));
+
+        // say a city saved after the miss was looked up
+        City galle = city(8L);
+        resolver.remember(galle);
+        assertSame(galle, resolver.city(8L));
+        verify(cityRepo, times(1)).findAllById(any());
+    }
+
+    @Test
+    void testRememberDoesNotReplaceALoadedEntity() {
+        City loaded = city(7L);
+        when(cityRepo.findAllById(any())).thenReturn(Collections.singletonList(loaded));
+        resolver.city(7L);
+
+        resolver.remember(city(7L));
+        assertSame(loaded, resolver.city(7L));
+    }
+
+    private static City city(Long id) {
+        City city = new City();
+        ReflectionTestUtils.setField(city, "id", id);
+        return city;
+    }
+
+    private static Country country(Long id) {
+        Country country = new Country();
+        ReflectionTestUtils.setField(country, "id", id);
+        return country;
+    }
+}
@@ -0,0 +1,26 @@
+package com.project.cms.service;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Checks the serial day conversion against POI's own. */
+public class StreamingSheetReaderTest {
+
+    @ParameterizedTest
+    @ValueSource(doubles = {
+            0, 1, 31, 58, 59, 59.5,
+            // Excel's fictitious 29 February 1900 and the days either side of it
+            60, 60.25, 60.9999999999, 61, 61.5,
+            25569, 36526, 43831, 45351, 2958465,
+            // times of day, including ones POI rounds up into the next day
+            43831.25, 43831.5, 43831.999, 43831.99999, 43831.9999999, 43831.99999999, 43831.999999999,
+            59.99999999, 60.99999999
+    })
+    void testExcelDateMatchesPoi(double serial) {
+        assertEquals(DateUtil.getLocalDateTime(serial).toLocalDate(), StreamingSheetReader.excelDate(serial),
+                Double.toString(serial));
+    }
+}
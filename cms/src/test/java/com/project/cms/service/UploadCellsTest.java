@@ -0,0 +1,58 @@
+package com.project.cms.service;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Checks the hand-written date parsing against the formatters it replaced. */
+public class UploadCellsTest {
+
+    // tried in this order before parseDate was written by hand
+    private static final List<DateTimeFormatter> FORMATTERS = Arrays.asList(
+            DateTimeFormatter.ofPattern("M/d/yyyy"),
+            DateTimeFormatter.ofPattern("MM/dd/yyyy"),
+            DateTimeFormatter.ISO_LOCAL_DATE);
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // M/d/yyyy and MM/dd/yyyy
+            "1/2/2020", "01/02/2020", "1/02/2020", "12/31/1999", "2/29/2024",
+            // slashed dates past the month's end are clamped to its last day
+            "2/29/2023", "2/30/2024", "2/31/2023", "4/31/2021", "11/31/2021",
+            // ISO dates are strict
+            "2024-02-29", "2000-01-01", "2023-02-29", "2024-02-30", "2021-04-31",
+            // invalid either way
+            "2/32/2024", "13/1/2020", "0/1/2020", "1/0/2020", "1/2/20", "1/2/", "/1/2020", "1//2020",
+            "111/2/2020", "2024-13-01", "2024-00-10", "2024-1-01", "2024/01/01", "20240101",
+            "2024-01-1x", "a/b/cdef", "", " ", "abc", "-1/2/2020"
+    })
+    void testParseDateMatchesFormatters(String value) {
+        assertEquals(formatterResult(value), parseDateOrNull(value), value);
+    }
+
+    private static LocalDate formatterResult(String value) {
+        for (DateTimeFormatter formatter : FORMATTERS) {
+            try {
+                return LocalDate.parse(value, formatter);
+            } catch (DateTimeParseException e) {
+                // try the next one
+            }
+        }
+        return null;
+    }
+
+    private static LocalDate parseDateOrNull(String value) {
+        try {
+            return UploadCells.parseDate(value);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}